@@ -18,8 +18,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+import boomerang.callgraph.BoomerangICFG;
 import boomerang.callgraph.ObservableDynamicICFG;
 import boomerang.callgraph.ObservableICFG;
+import boomerang.callgraph.ObservableStaticICFG;
 import boomerang.debugger.Debugger;
 import boomerang.debugger.IDEVizDebugger;
 import boomerang.preanalysis.BoomerangPretransformer;
@@ -30,12 +32,27 @@ import crypto.analysis.CrySLRulesetSelector.RuleFormat;
 import crypto.analysis.CrySLRulesetSelector.Ruleset;
 import crypto.analysis.CryptoScanner;
 import crypto.analysis.IAnalysisSeed;
+import crypto.analysis.ICrySLResultsListener;
+import crypto.analysis.ReferencedRuleSelector;
+import crypto.analysis.scheduling.CostBasedSeedScheduler;
+import crypto.analysis.scheduling.FifoSeedScheduler;
+import crypto.analysis.scheduling.RuleDependencyOrder;
+import crypto.analysis.scheduling.SeedCostEstimator;
+import crypto.analysis.scheduling.SeedScheduler;
+import crypto.analysis.scheduling.SeedTimings;
+import crypto.boomerang.AdaptiveTimeoutPolicy;
+import crypto.boomerang.BackwardQueryCache;
+import crypto.boomerang.FixedTimeoutPolicy;
+import crypto.boomerang.QueryKind;
+import crypto.boomerang.TimeoutPolicy;
 import crypto.exceptions.CryptoAnalysisException;
 import crypto.preanalysis.SeedFactory;
 import crypto.providerdetection.ProviderDetection;
 import crypto.reporting.CSVReporter;
 import crypto.reporting.CommandLineReporter;
 import crypto.reporting.ErrorMarkerListener;
+import crypto.reporting.MetricsReporter;
+import crypto.reporting.PerformanceReporter;
 import crypto.reporting.SARIFReporter;
 import crypto.rules.CrySLRule;
 import crypto.rules.CrySLRuleReader;
@@ -58,6 +75,11 @@ import typestate.TransitionFunction;
 public abstract class HeadlessCryptoScanner {
 	private boolean hasSeeds;
 	private static Stopwatch callGraphWatch;
+	private Stopwatch executionWatch;
+	private long executionAllocationStart;
+	private long sootSetupMillis;
+	private long sootSetupAllocatedBytes;
+	private long callGraphAllocationStart;
 	private static CommandLine options;
 	private static boolean PRE_ANALYSIS = false;
 	private static List<CrySLRule> rules = Lists.newArrayList();
@@ -68,6 +90,10 @@ public abstract class HeadlessCryptoScanner {
 		CHA, SPARK_LIBRARY, SPARK
 	}
 
+	public static enum SeedOrder {
+		FIFO, DEPENDENCY, COST
+	}
+
 	public static void main(String... args) {
 		HeadlessCryptoScanner scanner;
 		try {
@@ -128,6 +154,36 @@ public abstract class HeadlessCryptoScanner {
 		} else {
 			callGraphAlogrithm = CG.CHA;
 		}
+		final int numberOfThreads = getIntegerOption("threads", 1);
+		final int timeBudget = getIntegerOption("timeBudget", 0);
+		final int metricsInterval = getIntegerOption("metricsInterval", 0);
+		// A cache size of 0 disables caching
+		final int queryCacheSize = getIntegerOption("queryCacheSize", BackwardQueryCache.DEFAULT_MAXIMUM_SIZE, 0);
+		final FixedTimeoutPolicy timeouts = new FixedTimeoutPolicy(getIntegerOption("timeout", FixedTimeoutPolicy.DEFAULT_TIMEOUT_MS));
+		if (options.hasOption("typestateTimeout")) {
+			timeouts.setTimeout(QueryKind.TYPESTATE, getIntegerOption("typestateTimeout", FixedTimeoutPolicy.DEFAULT_TIMEOUT_MS));
+		}
+		if (options.hasOption("extractionTimeout")) {
+			timeouts.setTimeout(QueryKind.VALUE_EXTRACTION, getIntegerOption("extractionTimeout", FixedTimeoutPolicy.DEFAULT_TIMEOUT_MS));
+		}
+		if (options.hasOption("ruleTimeouts")) {
+			timeouts.readTimeouts(new File(options.getOptionValue("ruleTimeouts")));
+		}
+		final SeedOrder seedOrder;
+		if (options.hasOption("seedScheduler")) {
+			String val = options.getOptionValue("seedScheduler");
+			if (val.equalsIgnoreCase("cost")) {
+				seedOrder = SeedOrder.COST;
+			} else if (val.equalsIgnoreCase("dependency")) {
+				seedOrder = SeedOrder.DEPENDENCY;
+			} else if (val.equalsIgnoreCase("fifo")) {
+				seedOrder = SeedOrder.FIFO;
+			} else {
+				throw new CryptoAnalysisException("The option --seedScheduler expects fifo, dependency or cost, but was: " + val);
+			}
+		} else {
+			seedOrder = options.hasOption("seedTimings") ? SeedOrder.COST : SeedOrder.DEPENDENCY;
+		}
 		HeadlessCryptoScanner sourceCryptoScanner = new HeadlessCryptoScanner() {
 
 			@Override
@@ -174,10 +230,91 @@ public abstract class HeadlessCryptoScanner {
 			protected boolean providerDetection() {
 				return options.hasOption("providerDetection");
 			}
+
+			@Override
+			protected int numberOfThreads() {
+				return numberOfThreads;
+			}
+
+			@Override
+			protected int timeBudget() {
+				return timeBudget;
+			}
+
+			@Override
+			protected String getMetricsFile() {
+				return options.getOptionValue("metricsFile");
+			}
+
+			@Override
+			protected String getPerformanceReportFile() {
+				return options.getOptionValue("performanceReport");
+			}
+
+			@Override
+			protected int metricsInterval() {
+				return metricsInterval;
+			}
+
+			@Override
+			protected FixedTimeoutPolicy timeouts() {
+				return timeouts;
+			}
+
+			@Override
+			protected boolean adaptiveTimeouts() {
+				return options.hasOption("adaptiveTimeouts");
+			}
+
+			@Override
+			protected boolean flightRecorderEvents() {
+				return options.hasOption("jfrEvents");
+			}
+
+			@Override
+			protected int queryCacheSize() {
+				return queryCacheSize;
+			}
+
+			@Override
+			protected SeedOrder seedOrder() {
+				return seedOrder;
+			}
+
+			@Override
+			protected String seedTimingsFile() {
+				return options.getOptionValue("seedTimings");
+			}
+
+			@Override
+			protected boolean lazyRules() {
+				return options.hasOption("lazyRules");
+			}
 			
 		};
 		return sourceCryptoScanner;
 	}
+
+	private static int getIntegerOption(String option, int defaultValue) throws CryptoAnalysisException {
+		return getIntegerOption(option, defaultValue, 1);
+	}
+
+	private static int getIntegerOption(String option, int defaultValue, int minimum) throws CryptoAnalysisException {
+		if (!options.hasOption(option)) {
+			return defaultValue;
+		}
+		String value = options.getOptionValue(option);
+		int parsed;
+		try {
+			parsed = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new CryptoAnalysisException("The option --" + option + " expects an integer, but was: " + value, e);
+		}
+		if (parsed < minimum) {
+			throw new CryptoAnalysisException("The option --" + option + " expects an integer of at least " + minimum + ", but was: " + value);
+		}
+		return parsed;
+	}
 	
 
 	protected String getCSVOutputFile(){
@@ -187,6 +324,8 @@ public abstract class HeadlessCryptoScanner {
 
 	public void exec() {
 		Stopwatch stopwatch = Stopwatch.createStarted();
+		executionWatch = stopwatch;
+		executionAllocationStart = PerformanceReporter.allocatedBytes();
 		if(PRE_ANALYSIS){
 			try {
 				initializeSootWithEntryPointAllReachable(false);
@@ -233,6 +372,9 @@ public abstract class HeadlessCryptoScanner {
 
 
 	private void analyse() {
+		sootSetupMillis = executionWatch.elapsed(TimeUnit.MILLISECONDS);
+		callGraphAllocationStart = PerformanceReporter.allocatedBytes();
+		sootSetupAllocatedBytes = executionAllocationStart < 0 ? -1 : callGraphAllocationStart - executionAllocationStart;
 		Transform transform = new Transform("wjtp.ifds", createAnalysisTransformer());
 		PackManager.v().getPack("wjtp").add(transform);
 		callGraphWatch = Stopwatch.createStarted();        
@@ -255,7 +397,7 @@ public abstract class HeadlessCryptoScanner {
 			protected void internalTransform(String phaseName, Map<String, String> options) {
 				BoomerangPretransformer.v().reset();
 				BoomerangPretransformer.v().apply();
-				ObservableDynamicICFG observableDynamicICFG = new ObservableDynamicICFG(false);
+				ObservableICFG<Unit, SootMethod> icfg = precomputedICFG() ? new ObservableStaticICFG(new BoomerangICFG(false)) : new ObservableDynamicICFG(false);
 				List<CrySLRule> rules = HeadlessCryptoScanner.this.getRules();
 				ErrorMarkerListener fileReporter;
 				if (sarifReport()) {
@@ -264,6 +406,7 @@ public abstract class HeadlessCryptoScanner {
 					fileReporter = new CommandLineReporter(getOutputFolder(), rules);
 				}
 
+				final SeedTimings seedTimings = seedTimingsFile() != null ? SeedTimings.load(new File(seedTimingsFile())) : new SeedTimings();
 				final CrySLResultsReporter reporter = new CrySLResultsReporter();
 				if(getAdditionalListener() != null)
 					reporter.addReportListener(getAdditionalListener());
@@ -271,13 +414,59 @@ public abstract class HeadlessCryptoScanner {
 
 					@Override
 					public ObservableICFG<Unit, SootMethod> icfg() {
-						return observableDynamicICFG;
+						return icfg;
 					}
 
 					@Override
 					public CrySLResultsReporter getAnalysisListener() {
 						return reporter;
 					}
+
+					@Override
+					public int numberOfThreads() {
+						return HeadlessCryptoScanner.this.numberOfThreads();
+					}
+
+					@Override
+					protected BackwardQueryCache createBackwardQueryCache() {
+						return HeadlessCryptoScanner.this.createBackwardQueryCache();
+					}
+
+					@Override
+					public boolean resolveLocalConstants() {
+						return HeadlessCryptoScanner.this.resolveLocalConstants();
+					}
+
+					@Override
+					protected TimeoutPolicy createTimeoutPolicy() {
+						if (adaptiveTimeouts()) {
+							return new AdaptiveTimeoutPolicy(timeouts(), this);
+						}
+						return timeouts();
+					}
+
+					@Override
+					public long timeBudgetInMillis() {
+						if (timeBudget() <= 0) {
+							return 0;
+						}
+						// The budget also covers the Soot setup and the call graph construction
+						long remaining = TimeUnit.SECONDS.toMillis(timeBudget()) - executionWatch.elapsed(TimeUnit.MILLISECONDS);
+						return Math.max(1, remaining);
+					}
+
+					@Override
+					protected SeedScheduler createSeedScheduler() {
+						switch (seedOrder()) {
+						case FIFO:
+							return new FifoSeedScheduler();
+						case COST:
+							// Seeds of equal cost are ordered along the rule dependencies
+							return new CostBasedSeedScheduler(new SeedCostEstimator(seedTimings), new RuleDependencyOrder(rules));
+						default:
+							return super.createSeedScheduler();
+						}
+					}
 					
 					@Override
 					public Debugger<TransitionFunction> debugger(IDEALSeedSolver<TransitionFunction> solver, IAnalysisSeed seed) {
@@ -298,6 +487,26 @@ public abstract class HeadlessCryptoScanner {
 				if(csvOutputFile != null){
 					reporter.addReportListener(new CSVReporter(csvOutputFile,softwareIdentifier(),rules,callGraphWatch.elapsed(TimeUnit.MILLISECONDS)));
 				}
+				String metricsFile = getMetricsFile();
+				if (metricsFile != null) {
+					reporter.addReportListener(new MetricsReporter(new File(metricsFile), metricsInterval()));
+				}
+				String performanceReportFile = getPerformanceReportFile();
+				if (performanceReportFile != null) {
+					PerformanceReporter performanceReporter = new PerformanceReporter(new File(performanceReportFile));
+					performanceReporter.addPhase(PerformanceReporter.Phase.SOOT_SETUP, sootSetupMillis, sootSetupAllocatedBytes);
+					long callGraphAllocatedBytes = callGraphAllocationStart < 0 ? -1 : PerformanceReporter.allocatedBytes() - callGraphAllocationStart;
+					performanceReporter.addPhase(PerformanceReporter.Phase.CALL_GRAPH, callGraphWatch.elapsed(TimeUnit.MILLISECONDS), callGraphAllocatedBytes);
+					reporter.addReportListener(performanceReporter);
+				}
+				if (flightRecorderEvents()) {
+					ICrySLResultsListener flightRecorderReporter = createFlightRecorderReporter();
+					if (flightRecorderReporter != null) {
+						reporter.addReportListener(flightRecorderReporter);
+					} else {
+						LOGGER.warn("Flight Recorder events are not supported by this JVM or build and are not emitted.");
+					}
+				}
 				
 				if (providerDetection()) {
 					//create a new object to execute the Provider Detection analysis
@@ -306,14 +515,17 @@ public abstract class HeadlessCryptoScanner {
 					if(rootRulesDirForProvider == null) {
 						rootRulesDirForProvider = System.getProperty("user.dir")+File.separator+"src"+File.separator+"main"+File.separator+"resources";
 					}
-					String detectedProvider = providerDetection.doAnalysis(observableDynamicICFG, rootRulesDirForProvider);
+					String detectedProvider = providerDetection.doAnalysis(icfg, rootRulesDirForProvider);
 					if(detectedProvider != null) {
 						rules.clear();
 						rules.addAll(providerDetection.chooseRules(rootRulesDirForProvider+File.separator+detectedProvider));
 					}
 				}
 				
-				scanner.scan(rules);
+				scanner.scan(lazyRules() ? new ReferencedRuleSelector().select(rules) : rules);
+				if (seedOrder() == SeedOrder.COST && seedTimingsFile() != null) {
+					seedTimings.save(new File(seedTimingsFile()));
+				}
 			}
 		};
 	}
@@ -447,6 +659,110 @@ public abstract class HeadlessCryptoScanner {
 	protected boolean providerDetection() {
 		return true;
 	}
+
+	protected int numberOfThreads() {
+		return 1;
+	}
+
+	/**
+	 * Seeds analyzed by several threads share the ICFG, hence it is computed upfront from the call
+	 * graph instead of being extended while the seeds are analyzed.
+	 *
+	 * @return <code>true</code> to analyze the seeds on the precomputed ICFG of the call graph
+	 */
+	protected boolean precomputedICFG() {
+		return numberOfThreads() > 1;
+	}
+
+	protected String getMetricsFile() {
+		return null;
+	}
+
+	/**
+	 * @return the file the time and memory per analysis phase and rule are written to, <code>null</code> for no report
+	 */
+	protected String getPerformanceReportFile() {
+		return null;
+	}
+
+	/**
+	 * @return the interval in seconds to write intermediate metrics, 0 to only write them at the end
+	 */
+	protected int metricsInterval() {
+		return 0;
+	}
+
+	/**
+	 * @return the time budget of the whole run in seconds, 0 if it is not limited
+	 */
+	protected int timeBudget() {
+		return 0;
+	}
+
+	protected FixedTimeoutPolicy timeouts() {
+		return new FixedTimeoutPolicy();
+	}
+
+	protected boolean adaptiveTimeouts() {
+		return false;
+	}
+
+	/**
+	 * @return the maximum number of value extraction query results shared between seeds
+	 */
+	protected int queryCacheSize() {
+		return BackwardQueryCache.DEFAULT_MAXIMUM_SIZE;
+	}
+
+	/**
+	 * @return the cache of value extraction query results shared by the seeds of the scan
+	 */
+	protected BackwardQueryCache createBackwardQueryCache() {
+		return new BackwardQueryCache(queryCacheSize());
+	}
+
+	/**
+	 * @return <code>false</code> to extract all parameter values with Boomerang queries, including constants assigned in the same method
+	 */
+	protected boolean resolveLocalConstants() {
+		return true;
+	}
+
+	/**
+	 * @return <code>true</code> to emit Java Flight Recorder events for seeds, queries, constraints and predicates
+	 */
+	protected boolean flightRecorderEvents() {
+		return false;
+	}
+
+	/**
+	 * The reporter is only compiled with the jfr profile of the build, on a JDK providing jdk.jfr.
+	 * 
+	 * @return the Flight Recorder reporter, <code>null</code> if the JVM or the build lacks it
+	 */
+	private static ICrySLResultsListener createFlightRecorderReporter() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return (ICrySLResultsListener) Class.forName("crypto.reporting.jfr.FlightRecorderReporter").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	protected SeedOrder seedOrder() {
+		return SeedOrder.DEPENDENCY;
+	}
+
+	protected String seedTimingsFile() {
+		return null;
+	}
+
+	/**
+	 * @return <code>true</code> to analyze only the rules of API classes referenced by the application
+	 */
+	protected boolean lazyRules() {
+		return false;
+	}
 	
 	private static String pathToJCE() {
 		// When whole program mode is disabled, the classpath misses jce.jar
@@ -487,6 +803,21 @@ public abstract class HeadlessCryptoScanner {
 				+ "--preanalysis (enables pre-analysis)\n"
 				+ "--visualization (enables the visualization, but also requires --reportDir option to be set)\n"
 				+ "--sarifReport (enables sarif report)\n"
-				+ "--providerDetection (enables provider detection analysis)\n");
+				+ "--providerDetection (enables provider detection analysis)\n"
+				+ "--threads=<number_of_threads_used_to_analyze_seeds, more than 1 analyzes on the precomputed ICFG of the call graph>\n"
+				+ "--timeBudget=<seconds_after_which_the_analysis_stops_and_reports_partial_results>\n"
+				+ "--timeout=<default_timeout_of_a_query_in_ms (default: 5000)>\n"
+				+ "--typestateTimeout=<timeout_of_typestate_queries_in_ms>\n"
+				+ "--extractionTimeout=<timeout_of_value_extraction_queries_in_ms>\n"
+				+ "--ruleTimeouts=<properties_file_with_timeouts_per_rule>\n"
+				+ "--adaptiveTimeouts (derives the timeouts from the observed query times and the time budget)\n"
+				+ "--metricsFile=<json_file_for_counters_and_timings_per_rule>\n"
+				+ "--metricsInterval=<seconds_between_intermediate_writes_of_the_metrics_file>\n"
+				+ "--performanceReport=<text_file_for_time_and_memory_per_phase_rule_and_seed>\n"
+				+ "--queryCacheSize=<maximum_number_of_value_extraction_results_shared_between_seeds, 0 to disable (default: 1000)>\n"
+				+ "--jfrEvents (emits Java Flight Recorder events for seeds, Boomerang queries, constraints and predicates)\n"
+				+ "--seedScheduler=<order_in_which_seeds_are_analyzed (FIFO, DEPENDENCY, COST)>\n"
+				+ "--seedTimings=<file_storing_seed_execution_times_across_runs (enables COST scheduling)>\n"
+				+ "--lazyRules (analyzes only the rules of API classes referenced by the application)\n");
 	}
 }
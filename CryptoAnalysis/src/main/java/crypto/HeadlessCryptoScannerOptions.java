@@ -54,6 +54,51 @@ public class HeadlessCryptoScannerOptions extends Options {
 		
 		Option providerDetection = Option.builder().longOpt("providerDetection").hasArg(false).desc("Enable Provider Detection analysis").build();
 		addOption(providerDetection);
+
+		Option threads = Option.builder().longOpt("threads").hasArg().desc("The number of threads used to analyze the seeds (default: 1).").build();
+		addOption(threads);
+
+		Option timeBudget = Option.builder().longOpt("timeBudget").hasArg().desc("Time in seconds after which no further seeds are analyzed and partial results are reported.").build();
+		addOption(timeBudget);
+
+		Option timeout = Option.builder().longOpt("timeout").hasArg().desc("The default timeout of a query in milliseconds (default: 5000).").build();
+		addOption(timeout);
+
+		Option typestateTimeout = Option.builder().longOpt("typestateTimeout").hasArg().desc("The timeout of the typestate analysis of a seed in milliseconds.").build();
+		addOption(typestateTimeout);
+
+		Option extractionTimeout = Option.builder().longOpt("extractionTimeout").hasArg().desc("The timeout of a value extraction query in milliseconds.").build();
+		addOption(extractionTimeout);
+
+		Option ruleTimeouts = Option.builder().longOpt("ruleTimeouts").hasArg().desc("A properties file with timeouts per rule, e.g. javax.crypto.Cipher=10000 or javax.crypto.Cipher.typestate=10000.").build();
+		addOption(ruleTimeouts);
+
+		Option adaptiveTimeouts = Option.builder().longOpt("adaptiveTimeouts").hasArg(false).desc("Derives the timeouts from the observed query times and the remaining time budget.").build();
+		addOption(adaptiveTimeouts);
+
+		Option metricsFile = Option.builder().longOpt("metricsFile").hasArg().desc("A JSON file to which counters and timings of the analysis per rule are written.").build();
+		addOption(metricsFile);
+
+		Option metricsInterval = Option.builder().longOpt("metricsInterval").hasArg().desc("Interval in seconds to write intermediate metrics while the analysis runs.").build();
+		addOption(metricsInterval);
+
+		Option performanceReport = Option.builder().longOpt("performanceReport").hasArg().desc("A text file to which the time and allocated memory per analysis phase, per rule and of the most expensive seeds are written.").build();
+		addOption(performanceReport);
+
+		Option queryCacheSize = Option.builder().longOpt("queryCacheSize").hasArg().desc("Maximum number of value extraction query results that are shared between seeds.").build();
+		addOption(queryCacheSize);
+
+		Option jfrEvents = Option.builder().longOpt("jfrEvents").hasArg(false).desc("Emits Java Flight Recorder events for the analysis of seeds, Boomerang queries, constraint evaluations and predicate checks.").build();
+		addOption(jfrEvents);
+
+		Option seedScheduler = Option.builder().longOpt("seedScheduler").hasArg().desc("The order in which seeds are analyzed: fifo, dependency (default) or cost.").build();
+		addOption(seedScheduler);
+
+		Option seedTimings = Option.builder().longOpt("seedTimings").hasArg().desc("File to read and store the execution times of seeds for cost-based scheduling.").build();
+		addOption(seedTimings);
+
+		Option lazyRules = Option.builder().longOpt("lazyRules").hasArg(false).desc("Analyzes only the rules of API classes referenced by the application and the rules ensuring the predicates they require.").build();
+		addOption(lazyRules);
 	}
 
 }
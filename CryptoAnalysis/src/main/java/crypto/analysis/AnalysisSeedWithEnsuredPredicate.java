@@ -11,6 +11,7 @@ import boomerang.debugger.Debugger;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.results.ForwardBoomerangResults;
+import crypto.boomerang.TimeoutPolicy;
 import crypto.rules.StateMachineGraph;
 import crypto.rules.StateNode;
 import crypto.rules.TransitionEdge;
@@ -21,12 +22,12 @@ import soot.SootMethod;
 import soot.Unit;
 import sync.pds.solver.nodes.Node;
 import typestate.TransitionFunction;
+import typestate.finiteautomata.State;
 
 public class AnalysisSeedWithEnsuredPredicate extends IAnalysisSeed{
 
-	private ForwardBoomerangResults<TransitionFunction> analysisResults;
+	private SeedResultSummary analysisResults;
 	private Set<EnsuredCrySLPredicate> ensuredPredicates = Sets.newHashSet();
-	private ExtendedIDEALAnaylsis problem;
 	private boolean analyzed;
 
 	public AnalysisSeedWithEnsuredPredicate(CryptoScanner cryptoScanner, Node<Statement,Val> delegate) {
@@ -36,27 +37,31 @@ public class AnalysisSeedWithEnsuredPredicate extends IAnalysisSeed{
 	@Override
 	public void execute() {
 		cryptoScanner.getAnalysisListener().seedStarted(this);
-		ExtendedIDEALAnaylsis solver = getOrCreateAnalysis();
+		ExtendedIDEALAnaylsis solver = createAnalysis();
 		solver.run(this);
-		analysisResults = solver.getResults();
-		for(EnsuredCrySLPredicate pred : ensuredPredicates)
-			ensurePredicates(pred);
-		cryptoScanner.getAnalysisListener().onSeedFinished(this, analysisResults);
-		analyzed = true;
+		ForwardBoomerangResults<TransitionFunction> fullResults = solver.getResults();
+		SeedResultSummary summary = fullResults == null ? null : new SeedResultSummary(fullResults);
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			analysisResults = summary;
+			for(EnsuredCrySLPredicate pred : ensuredPredicates)
+				ensurePredicates(pred);
+			cryptoScanner.getAnalysisListener().onSeedFinished(this, fullResults);
+			analyzed = true;
+		}
 	}
 
 	protected void ensurePredicates(EnsuredCrySLPredicate pred) {
 		if(analysisResults == null)
 			return;
 
-		for(Cell<Statement, Val, TransitionFunction> c : analysisResults.asStatementValWeightTable().cellSet()){
+		for(Cell<Statement, Val, Set<State>> c : analysisResults.getReachedStates().cellSet()){
 			predicateHandler.addNewPred(this,c.getRowKey(), c.getColumnKey(), pred);
 		}
 	}
 
 
-	private ExtendedIDEALAnaylsis getOrCreateAnalysis() {
-		problem = new ExtendedIDEALAnaylsis() {
+	private ExtendedIDEALAnaylsis createAnalysis() {
+		return new ExtendedIDEALAnaylsis() {
 			
 			@Override
 			protected ObservableICFG<Unit, SootMethod> icfg() {
@@ -81,6 +86,11 @@ public class AnalysisSeedWithEnsuredPredicate extends IAnalysisSeed{
 			public CrySLResultsReporter analysisListener() {
 				return cryptoScanner.getAnalysisListener();
 			}
+
+			@Override
+			protected TimeoutPolicy timeoutPolicy() {
+				return cryptoScanner.getTimeoutPolicy();
+			}
 			
 
 			@Override
@@ -88,12 +98,13 @@ public class AnalysisSeedWithEnsuredPredicate extends IAnalysisSeed{
 				return cryptoScanner.debugger(solver,AnalysisSeedWithEnsuredPredicate.this);
 			}
 		};
-		return problem;
 	}
 
 	public void addEnsuredPredicate(EnsuredCrySLPredicate pred) {
-		if(ensuredPredicates.add(pred) && analyzed)
-			ensurePredicates(pred);
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			if(ensuredPredicates.add(pred) && analyzed)
+				ensurePredicates(pred);
+		}
 	}
 
 
@@ -24,8 +24,11 @@ import boomerang.jimple.Val;
 import boomerang.results.ForwardBoomerangResults;
 import crypto.analysis.errors.IncompleteOperationError;
 import crypto.analysis.errors.TypestateError;
+import crypto.boomerang.TimeoutPolicy;
+import crypto.constraints.ArrayStoreIndex;
 import crypto.constraints.ConstraintSolver;
 import crypto.constraints.ConstraintSolver.EvaluableConstraint;
+import crypto.constraints.SubtypeOracle;
 import crypto.extractparameter.CallSiteWithParamIndex;
 import crypto.extractparameter.ExtractParameterAnalysis;
 import crypto.extractparameter.ExtractedValue;
@@ -36,6 +39,7 @@ import crypto.rules.CrySLConstraint;
 import crypto.rules.CrySLMethod;
 import crypto.rules.CrySLObject;
 import crypto.rules.CrySLPredicate;
+import crypto.rules.CrySLRule;
 import crypto.rules.StateNode;
 import crypto.rules.TransitionEdge;
 import crypto.typestate.CrySLMethodToSootMethod;
@@ -68,8 +72,10 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 
 	private final ClassSpecification spec;
 	private ExtendedIDEALAnaylsis analysis;
-	private ForwardBoomerangResults<TransitionFunction> results;
+	private SeedResultSummary results;
 	private Collection<EnsuredCrySLPredicate> ensuredPredicates = Sets.newHashSet();
+	private int ensuredPredicatesVersion;
+	private PredicateCheck lastPredicateCheck;
 	private Multimap<Statement, State> typeStateChange = HashMultimap.create();
 	private Collection<EnsuredCrySLPredicate> indirectlyEnsuredPredicates = Sets.newHashSet();
 	private Set<ISLConstraint> missingPredicates = Sets.newHashSet();
@@ -78,7 +84,7 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 	protected Map<Statement, SootMethod> allCallsOnObject = Maps.newLinkedHashMap();
 	private ExtractParameterAnalysis parameterAnalysis;
 	private Set<ResultsHandler> resultHandlers = Sets.newHashSet();
-	private boolean secure = true;
+	private volatile boolean secure = true;
 
 	public AnalysisSeedWithSpecification(CryptoScanner cryptoScanner, Statement stmt, Val val, ClassSpecification spec) {
 		super(cryptoScanner, stmt, val, spec.getFSM().getInitialWeight(stmt));
@@ -104,6 +110,16 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 			public CrySLResultsReporter analysisListener() {
 				return cryptoScanner.getAnalysisListener();
 			}
+
+			@Override
+			protected TimeoutPolicy timeoutPolicy() {
+				return cryptoScanner.getTimeoutPolicy();
+			}
+
+			@Override
+			protected CrySLRule getRule() {
+				return spec.getRule();
+			}
 		};
 	}
 
@@ -114,29 +130,30 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 
 	public void execute() {
 		cryptoScanner.getAnalysisListener().seedStarted(this);
-		runTypestateAnalysis();
-		if (results == null)
+		// The full results are only kept while the seed is analyzed, afterwards the summary suffices
+		ForwardBoomerangResults<TransitionFunction> fullResults = runTypestateAnalysis();
+		if (fullResults == null)
 			// Timeout occured.
 			return;
-		allCallsOnObject = results.getInvokedMethodOnInstance();
+		allCallsOnObject = fullResults.getInvokedMethodOnInstance();
 		runExtractParameterAnalysis();
 		checkInternalConstraints();
 
-		Multimap<Statement, State> unitToStates = HashMultimap.create();
-		for (Cell<Statement, Val, TransitionFunction> c : results.asStatementValWeightTable().cellSet()) {
-			unitToStates.putAll(c.getRowKey(), getTargetStates(c.getValue()));
-			for (EnsuredCrySLPredicate pred : indirectlyEnsuredPredicates) {
-				// TODO only maintain indirectly ensured predicate as long as they are not
-				// killed by the rule
-				predicateHandler.addNewPred(this, c.getRowKey(), c.getColumnKey(), pred);
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			for (Cell<Statement, Val, Set<State>> c : results.getReachedStates().cellSet()) {
+				for (EnsuredCrySLPredicate pred : indirectlyEnsuredPredicates) {
+					// TODO only maintain indirectly ensured predicate as long as they are not
+					// killed by the rule
+					predicateHandler.addNewPred(this, c.getRowKey(), c.getColumnKey(), pred);
+				}
 			}
-		}
 
-		computeTypestateErrorUnits();
-		computeTypestateErrorsForEndOfObjectLifeTime();
+			computeTypestateErrorUnits();
+			computeTypestateErrorsForEndOfObjectLifeTime(fullResults);
 
-		cryptoScanner.getAnalysisListener().onSeedFinished(this, results);
-		cryptoScanner.getAnalysisListener().collectedValues(this, parameterAnalysis.getCollectedValues());
+			cryptoScanner.getAnalysisListener().onSeedFinished(this, fullResults);
+			cryptoScanner.getAnalysisListener().collectedValues(this, parameterAnalysis.getCollectedValues());
+		}
 	}
 
 	private void checkInternalConstraints() {
@@ -147,39 +164,46 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 		cryptoScanner.getAnalysisListener().afterConstraintCheck(this);
 	}
 
-	private void runTypestateAnalysis() {
+	private ForwardBoomerangResults<TransitionFunction> runTypestateAnalysis() {
 		analysis.run(this);
-		results = analysis.getResults();
-		if (results != null) {
-			for (ResultsHandler handler : Lists.newArrayList(resultHandlers)) {
-				handler.done(results);
+		ForwardBoomerangResults<TransitionFunction> fullResults = analysis.getResults();
+		// The solver is not used anymore, release it together with the full results
+		analysis = null;
+		SeedResultSummary summary = fullResults == null ? null : new SeedResultSummary(fullResults);
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			results = summary;
+			if (results != null) {
+				predicateHandler.onSeedResults(this, results);
+				for (ResultsHandler handler : Lists.newArrayList(resultHandlers)) {
+					handler.done(results);
+				}
+				resultHandlers.clear();
 			}
 		}
+		return fullResults;
 	}
 
 	public void registerResultsHandler(ResultsHandler handler) {
-		if (results != null) {
-			handler.done(results);
-		} else {
-			resultHandlers.add(handler);
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			if (results != null) {
+				handler.done(results);
+			} else {
+				resultHandlers.add(handler);
+			}
 		}
 	}
 
 	private void runExtractParameterAnalysis() {
-		this.parameterAnalysis = new ExtractParameterAnalysis(this.cryptoScanner, allCallsOnObject, spec.getFSM());
+		this.parameterAnalysis = new ExtractParameterAnalysis(this.cryptoScanner, allCallsOnObject, spec.getFSM(), this);
 		this.parameterAnalysis.run();
 	}
 
 	private void computeTypestateErrorUnits() {
-		Set<Statement> allTypestateChangeStatements = Sets.newHashSet();
-		for (Cell<Statement, Val, TransitionFunction> c : results.asStatementValWeightTable().cellSet()) {
-			allTypestateChangeStatements.addAll(c.getValue().getLastStateChangeStatements());
-		}
-		for (Cell<Statement, Val, TransitionFunction> c : results.asStatementValWeightTable().cellSet()) {
+		Set<Statement> allTypestateChangeStatements = results.getTypestateChangeStatements();
+		for (Cell<Statement, Val, Set<State>> c : results.getReachedStates().cellSet()) {
 			Statement curr = c.getRowKey();
 			if (allTypestateChangeStatements.contains(curr)) {
-				Collection<? extends State> targetStates = getTargetStates(c.getValue());
-				for (State newStateAtCurr : targetStates) {
+				for (State newStateAtCurr : c.getValue()) {
 					typeStateChangeAtStatement(curr, newStateAtCurr);
 				}
 			}
@@ -187,8 +211,8 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 		}
 	}
 
-	private void computeTypestateErrorsForEndOfObjectLifeTime() {
-		Table<Statement, Val, TransitionFunction> endPathOfPropagation = results.getObjectDestructingStatements();
+	private void computeTypestateErrorsForEndOfObjectLifeTime(ForwardBoomerangResults<TransitionFunction> fullResults) {
+		Table<Statement, Val, TransitionFunction> endPathOfPropagation = fullResults.getObjectDestructingStatements();
 
 		for (Cell<Statement, Val, TransitionFunction> c : endPathOfPropagation.cellSet()) {
 			Set<SootMethod> expectedMethodsToBeCalled = Sets.newHashSet();
@@ -328,7 +352,7 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 		indirectlyEnsuredPredicates.add(ensuredCrySLPredicate);
 		if (results == null)
 			return;
-		for (Cell<Statement, Val, TransitionFunction> c : results.asStatementValWeightTable().cellSet()) {
+		for (Cell<Statement, Val, Set<State>> c : results.getReachedStates().cellSet()) {
 			for (EnsuredCrySLPredicate pred : indirectlyEnsuredPredicates) {
 				predicateHandler.addNewPred(this, c.getRowKey(), c.getColumnKey(), pred);
 			}
@@ -340,39 +364,35 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 
 		if (!satisfiesConstraintSytem)
 			return;
-		for (Cell<Statement, Val, TransitionFunction> e : results.asStatementValWeightTable().cellSet()) {
+		for (Cell<Statement, Val, Set<State>> e : results.getReachedStates().cellSet()) {
 			// TODO check for any reachable state that don't kill
 			// predicates.
-			if (containsTargetState(e.getValue(), stateNode)) {
+			if (e.getValue().contains(stateNode)) {
 				predicateHandler.addNewPred(this, e.getRowKey(), e.getColumnKey(), new EnsuredCrySLPredicate(predToBeEnsured, parameterAnalysis.getCollectedValues()));
 			}
 		}
 	}
 
-	private boolean containsTargetState(TransitionFunction value, State stateNode) {
-		return getTargetStates(value).contains(stateNode);
-	}
-
-	private Collection<? extends State> getTargetStates(TransitionFunction value) {
-		Set<State> res = Sets.newHashSet();
-		for (ITransition t : value.values()) {
-			if (t.to() != null)
-				res.add(t.to());
-		}
-		return res;
-	}
-
 	private boolean checkConstraintSystem() {
-		cryptoScanner.getAnalysisListener().beforePredicateCheck(this);
-		Set<ISLConstraint> relConstraints = constraintSolver.getRelConstraints();
-		boolean checkPredicates = checkPredicates(relConstraints);
-		cryptoScanner.getAnalysisListener().afterPredicateCheck(this);
-		if (!checkPredicates)
+		// The result only depends on the ensured predicates, the constraints do not change after the constraint check
+		PredicateCheck check = lastPredicateCheck;
+		if (check != null && check.ensuredPredicatesVersion == ensuredPredicatesVersion) {
+			check.replay();
+			cryptoScanner.onPredicateCheck(true);
+		} else {
+			cryptoScanner.getAnalysisListener().beforePredicateCheck(this);
+			Set<ISLConstraint> relConstraints = constraintSolver.getRelConstraints();
+			check = checkPredicates(relConstraints);
+			lastPredicateCheck = check;
+			cryptoScanner.getAnalysisListener().afterPredicateCheck(this);
+			cryptoScanner.onPredicateCheck(false);
+		}
+		if (!check.satisfied)
 			return false;
 		return internalConstraintSatisfied;
 	}
 
-	private boolean checkPredicates(Collection<ISLConstraint> relConstraints) {
+	private PredicateCheck checkPredicates(Collection<ISLConstraint> relConstraints) {
 		List<ISLConstraint> requiredPredicates = Lists.newArrayList();
 		for (ISLConstraint con : constraintSolver.getRequiredPredicates()) {
 			if (!ConstraintSolver.predefinedPreds.contains((con instanceof RequiredCrySLPredicate) ? ((RequiredCrySLPredicate) con).getPred().getPredName()
@@ -382,6 +402,7 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 		}
 		Set<ISLConstraint> remainingPredicates = Sets.newHashSet(requiredPredicates);
 		missingPredicates.removeAll(remainingPredicates);
+		PredicateCheck violated = new PredicateCheck(ensuredPredicatesVersion, requiredPredicates, null);
 
 		for (ISLConstraint pred : requiredPredicates) {
 			if (pred instanceof RequiredCrySLPredicate) {
@@ -389,7 +410,7 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 				if (reqPred.getPred().isNegated()) {
 					for (EnsuredCrySLPredicate ensPred : ensuredPredicates) {
 						if (ensPred.getPredicate().equals(reqPred.getPred())) {
-							return false;
+							return violated;
 						}
 					}
 					remainingPredicates.remove(pred);
@@ -409,7 +430,7 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 				if (negatives.size() == alternatives.size()) {
 					for (EnsuredCrySLPredicate ensPred : ensuredPredicates) {
 						if (alternatives.parallelStream().anyMatch(e -> e.getPredName().equals(ensPred.getPredicate().getPredName()))) {
-							return false;
+							return violated;
 						}
 					}
 					remainingPredicates.remove(pred);
@@ -457,7 +478,38 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 		}
 
 		this.missingPredicates.addAll(remainingPredicates);
-		return remainingPredicates.isEmpty();
+		return new PredicateCheck(ensuredPredicatesVersion, requiredPredicates, remainingPredicates);
+	}
+
+	/**
+	 * The result of a check of the required predicates for a state of the ensured predicates.
+	 */
+	private class PredicateCheck {
+
+		private final int ensuredPredicatesVersion;
+		private final List<ISLConstraint> requiredPredicates;
+		private final Set<ISLConstraint> remainingPredicates;
+		private final boolean satisfied;
+
+		/**
+		 * @param remainingPredicates the required predicates that are not ensured, <code>null</code> if a negated predicate is ensured
+		 */
+		private PredicateCheck(int ensuredPredicatesVersion, List<ISLConstraint> requiredPredicates, Set<ISLConstraint> remainingPredicates) {
+			this.ensuredPredicatesVersion = ensuredPredicatesVersion;
+			this.requiredPredicates = requiredPredicates;
+			this.remainingPredicates = remainingPredicates;
+			this.satisfied = remainingPredicates != null && remainingPredicates.isEmpty();
+		}
+
+		/**
+		 * Updates the missing predicates like the check did.
+		 */
+		private void replay() {
+			missingPredicates.removeAll(Sets.newHashSet(requiredPredicates));
+			if (remainingPredicates != null) {
+				missingPredicates.addAll(remainingPredicates);
+			}
+		}
 	}
 
 	private boolean evaluatePredCond(CrySLPredicate pred) {
@@ -577,8 +629,21 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 	}
 
 	public void addEnsuredPredicate(EnsuredCrySLPredicate ensPred) {
-		if (ensuredPredicates.add(ensPred)) {
-			for (Entry<Statement, State> e : typeStateChange.entries())
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			if (ensuredPredicates.add(ensPred)) {
+				ensuredPredicatesVersion++;
+				predicateHandler.scheduleUpdate(this);
+			}
+		}
+	}
+
+	/**
+	 * Ensures the predicates of the rule at all typestate changes of the object again, called by the
+	 * {@link crypto.predicates.PredicateHandler} after the seed received new ensured predicates.
+	 */
+	public void ensurePredicates() {
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			for (Entry<Statement, State> e : Lists.newArrayList(typeStateChange.entries()))
 				onAddedTypestateChange(e.getKey(), e.getValue());
 		}
 	}
@@ -606,6 +671,14 @@ public class AnalysisSeedWithSpecification extends IAnalysisSeed {
 		return parameterAnalysis;
 	}
 
+	public SubtypeOracle getSubtypeOracle() {
+		return cryptoScanner.getSubtypeOracle();
+	}
+
+	public ArrayStoreIndex getArrayStoreIndex() {
+		return cryptoScanner.getArrayStoreIndex();
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
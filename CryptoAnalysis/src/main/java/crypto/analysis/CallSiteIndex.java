@@ -0,0 +1,73 @@
+package crypto.analysis;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+import crypto.rules.CrySLForbiddenMethod;
+import soot.SootMethod;
+
+/**
+ * Maps each callee {@link SootMethod} to the {@link ClassSpecification}s that are interested in a
+ * call to it, either because the callee is an initial transition of the rule's usage pattern (and
+ * thus creates a seed) or because the rule forbids calling it. With this index, the seed discovery
+ * walks each method body once and routes every invoke statement directly to the matching
+ * specifications, independent of the number of loaded rules.
+ */
+public class CallSiteIndex {
+
+	private final SetMultimap<SootMethod, ClassSpecification> initialTransitions = LinkedHashMultimap.create();
+	private final Table<SootMethod, ClassSpecification, CrySLForbiddenMethod> forbiddenMethods = Tables.newCustomTable(Maps.newLinkedHashMap(), Maps::newLinkedHashMap);
+
+	public CallSiteIndex(Collection<ClassSpecification> specifications) {
+		for (ClassSpecification spec : specifications) {
+			for (CrySLForbiddenMethod forbiddenMethod : spec.getRule().getForbiddenMethods()) {
+				if (forbiddenMethod.getSilent()) {
+					continue;
+				}
+				for (SootMethod callee : spec.getForbiddenMethodCallees(forbiddenMethod)) {
+					// Only the first matching forbidden method of a rule is reported
+					if (!forbiddenMethods.contains(callee, spec)) {
+						forbiddenMethods.put(callee, spec, forbiddenMethod);
+					}
+				}
+			}
+			if (spec.getRule().getClassName().equals("javax.crypto.SecretKey")) {
+				continue;
+			}
+			for (SootMethod callee : spec.getFSM().initialTransitonLabel()) {
+				initialTransitions.put(callee, spec);
+			}
+		}
+	}
+
+	/**
+	 * @param callee the method invoked at a call site
+	 * @return <code>true</code> if a call to callee creates a seed or is forbidden by a specification
+	 */
+	public boolean isIndexed(SootMethod callee) {
+		return initialTransitions.containsKey(callee) || forbiddenMethods.containsRow(callee);
+	}
+
+	/**
+	 * @param callee the method invoked at a call site
+	 * @return the specifications for which a call to callee creates a seed
+	 */
+	public Set<ClassSpecification> getSpecificationsWithInitialTransition(SootMethod callee) {
+		return initialTransitions.get(callee);
+	}
+
+	/**
+	 * @param callee the method invoked at a call site
+	 * @return the specifications that forbid a call to callee, together with the forbidden method
+	 */
+	public Map<ClassSpecification, CrySLForbiddenMethod> getSpecificationsForbidding(SootMethod callee) {
+		return forbiddenMethods.row(callee);
+	}
+}
@@ -1,14 +1,13 @@
 package crypto.analysis;
 
 import java.util.Collection;
-import java.util.List;
-import java.util.Optional;
 
 import boomerang.WeightedForwardQuery;
 import boomerang.callgraph.ObservableICFG;
 import boomerang.debugger.Debugger;
 import boomerang.jimple.Statement;
 import crypto.analysis.errors.ForbiddenMethodError;
+import crypto.constraints.ConstraintPlan;
 import crypto.rules.CrySLForbiddenMethod;
 import crypto.rules.CrySLRule;
 import crypto.typestate.CrySLMethodToSootMethod;
@@ -17,7 +16,6 @@ import crypto.typestate.SootBasedStateMachineGraph;
 import ideal.IDEALSeedSolver;
 import soot.SootMethod;
 import soot.Unit;
-import soot.jimple.InvokeExpr;
 import soot.jimple.Stmt;
 import typestate.TransitionFunction;
 
@@ -26,6 +24,7 @@ public class ClassSpecification {
 	private CrySLRule crySLRule;
 	private final CryptoScanner cryptoScanner;
 	private final SootBasedStateMachineGraph fsm;
+	private ConstraintPlan constraintPlan;
 
 	public ClassSpecification(final CrySLRule rule, final CryptoScanner cScanner) {
 		this.crySLRule = rule;
@@ -60,8 +59,14 @@ public class ClassSpecification {
 
 	
 
-	public Collection<WeightedForwardQuery<TransitionFunction>> getInitialSeeds(SootMethod m) {
-		return extendedIdealAnalysis.computeSeeds(m);
+	/**
+	 * @param m the method containing the call site
+	 * @param u the call site
+	 * @param callee the resolved callee of the call site
+	 * @return the seeds of this specification created at the call site
+	 */
+	public Collection<WeightedForwardQuery<TransitionFunction>> getInitialSeeds(SootMethod m, Unit u, SootMethod callee) {
+		return extendedIdealAnalysis.computeSeeds(m, u, callee);
 	}
 
 
@@ -70,46 +75,28 @@ public class ClassSpecification {
 		return crySLRule.getClassName().toString();
 	}
 
-	public void invokesForbiddenMethod(SootMethod m) {
-		if ( !m.hasActiveBody()) {
-			return;
-		}
-		for (Unit u : m.getActiveBody().getUnits()) {
-			if (u instanceof Stmt) {
-				Stmt stmt = (Stmt) u;
-				if (!stmt.containsInvokeExpr())
-					continue;
-				InvokeExpr invokeExpr = stmt.getInvokeExpr();
-				SootMethod method = invokeExpr.getMethod();
-				Optional<CrySLForbiddenMethod> forbiddenMethod = isForbiddenMethod(method);
-				if (forbiddenMethod.isPresent()){
-					cryptoScanner.getAnalysisListener().reportError(null, new ForbiddenMethodError(new Statement((Stmt)u, cryptoScanner.icfg().getMethodOf(u)), this.getRule(), method, CrySLMethodToSootMethod.v().convert(forbiddenMethod.get().getAlternatives())));
-				}
-			}
-		}
+	public void reportForbiddenMethodCall(Stmt stmt, SootMethod calledMethod, CrySLForbiddenMethod forbiddenMethod) {
+		cryptoScanner.getAnalysisListener().reportError(null, new ForbiddenMethodError(new Statement(stmt, cryptoScanner.icfg().getMethodOf(stmt)), this.getRule(), calledMethod, CrySLMethodToSootMethod.v().convert(forbiddenMethod.getAlternatives())));
 	}
 
-	private Optional<CrySLForbiddenMethod> isForbiddenMethod(SootMethod method) {
-		// TODO replace by real specification once available.
-		List<CrySLForbiddenMethod> forbiddenMethods = crySLRule.getForbiddenMethods();
-//		System.out.println(forbiddenMethods);
-		//TODO Iterate over ICFG and report on usage of forbidden method.
-		for(CrySLForbiddenMethod m : forbiddenMethods){
-			if(!m.getSilent()){
-				Collection<SootMethod> matchingMethod = CrySLMethodToSootMethod.v().convert(m.getMethod());
-				if(matchingMethod.contains(method))
-					return Optional.of(m);
-				
-			}
-		}
-		return Optional.empty();
+	public Collection<SootMethod> getForbiddenMethodCallees(CrySLForbiddenMethod forbiddenMethod) {
+		return CrySLMethodToSootMethod.v().convert(forbiddenMethod.getMethod());
 	}
 
-
 	public CrySLRule getRule() {
 		return crySLRule;
 	}
 
+	/**
+	 * @return the plan to evaluate the constraints of the rule, shared by all its seeds
+	 */
+	public synchronized ConstraintPlan getConstraintPlan() {
+		if (constraintPlan == null) {
+			constraintPlan = new ConstraintPlan(crySLRule);
+		}
+		return constraintPlan;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
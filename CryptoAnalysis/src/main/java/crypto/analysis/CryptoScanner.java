@@ -1,8 +1,13 @@
 package crypto.analysis;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -10,29 +15,46 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
-import boomerang.Query;
+import boomerang.WeightedForwardQuery;
+import boomerang.callgraph.ObservableDynamicICFG;
 import boomerang.callgraph.ObservableICFG;
 import boomerang.debugger.Debugger;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
+import crypto.analysis.SeedDiscovery.DiscoveredCallSites;
+import crypto.analysis.SeedDiscovery.ForbiddenCall;
+import crypto.analysis.scheduling.PrioritySeedScheduler;
+import crypto.analysis.scheduling.RuleDependencyOrder;
+import crypto.analysis.scheduling.SeedScheduler;
+import crypto.boomerang.BackwardQueryCache;
+import crypto.boomerang.FixedTimeoutPolicy;
+import crypto.boomerang.TimeoutPolicy;
+import crypto.constraints.ArrayStoreIndex;
+import crypto.constraints.SubtypeOracle;
+import crypto.extractparameter.LocalConstantResolver;
 import crypto.predicates.PredicateHandler;
 import crypto.rules.CrySLRule;
 import crypto.typestate.CrySLMethodToSootMethod;
 import heros.utilities.DefaultValueMap;
 import ideal.IDEALSeedSolver;
-import soot.MethodOrMethodContext;
-import soot.Scene;
 import soot.SootMethod;
 import soot.Unit;
-import soot.jimple.toolkits.callgraph.ReachableMethods;
-import soot.util.queue.QueueReader;
 import sync.pds.solver.nodes.Node;
 import typestate.TransitionFunction;
 
 public abstract class CryptoScanner {
 
-	private final LinkedList<IAnalysisSeed> worklist = Lists.newLinkedList();
+	private SeedScheduler worklist;
+	private TimeoutPolicy timeoutPolicy;
+	private BackwardQueryCache backwardQueryCache;
+	private final LocalConstantResolver localConstantResolver = new LocalConstantResolver();
+	private final SubtypeOracle subtypeOracle = new SubtypeOracle();
+	private final ArrayStoreIndex arrayStoreIndex = new ArrayStoreIndex();
+	private ExecutorService queryExecutor;
+	private final Object analysisLock = new Object();
 	private final List<ClassSpecification> specifications = Lists.newLinkedList();
 	private final PredicateHandler predicateHandler = new PredicateHandler(this);
 	private CrySLResultsReporter resultsAggregator = new CrySLResultsReporter();
@@ -52,9 +74,21 @@ public abstract class CryptoScanner {
 			return new AnalysisSeedWithSpecification(CryptoScanner.this, key.stmt(), key.var(), key.getSpec());
 		}
 	};
+	private static final long PROGRESS_LOG_INTERVAL_SECONDS = 30;
 	private int solvedObject;
+	private long nextProgressLog;
 	private Stopwatch analysisWatch;
+	private long timeBudget;
+	private long evaluatedPredicateChecks;
+	private long memoizedPredicateChecks;
+	private int analysisThreads = 1;
 
+	/**
+	 * With more than one thread, the typestate and value extraction solvers query the ICFG at the
+	 * same time without holding the {@link #getAnalysisLock()}. The ICFG must then be precomputed,
+	 * e.g. an {@link boomerang.callgraph.ObservableStaticICFG}, and the bodies of the reachable
+	 * methods must be loaded before the scan.
+	 */
 	public abstract ObservableICFG<Unit, SootMethod> icfg();
 
 	public CrySLResultsReporter getAnalysisListener() {
@@ -66,77 +100,112 @@ public abstract class CryptoScanner {
 	}
 
 	public void scan(List<CrySLRule> specs) {
-		int processedSeeds = 0;
 		for (CrySLRule rule : specs) {
 			specifications.add(new ClassSpecification(rule, this));
 		}
+		predicateHandler.computeContradictionPairs(specifications);
 		CrySLResultsReporter listener = getAnalysisListener();
 		listener.beforeAnalysis();
 		analysisWatch = Stopwatch.createStarted();
+		timeBudget = timeBudgetInMillis();
+		analysisThreads = numberOfThreads();
+		if (analysisThreads > 1 && icfg() instanceof ObservableDynamicICFG) {
+			// The dynamic ICFG adds edges to the call graph of Soot while it is queried and notifies
+			// the callee listeners of all solvers, neither of which is safe for concurrent solvers
+			logger.warn("The analysis runs on a single thread, since the dynamic ICFG does not support " + analysisThreads + " threads");
+			analysisThreads = 1;
+		}
 		logger.info("Searching for seeds for the analysis!");
+		listener.beforeSeedDiscovery();
 		initialize();
+		listener.afterSeedDiscovery();
 		long elapsed = analysisWatch.elapsed(TimeUnit.SECONDS);
-		logger.info("Discovered " + worklist.size() + " analysis seeds within " + elapsed + " seconds!");
-		while (!worklist.isEmpty()) {
-			IAnalysisSeed curr = worklist.poll();
-			listener.discoveredSeed(curr);
-			curr.execute();
-			processedSeeds++;
-			listener.addProgress(processedSeeds,worklist.size());
-			estimateAnalysisTime();
+		logger.info("Discovered " + getWorklist().size() + " analysis seeds within " + elapsed + " seconds!");
+		logRetainedHeap("before analyzing the seeds");
+		try {
+			new SeedExecutor(this, analysisThreads).run();
+		} finally {
+			synchronized (analysisLock) {
+				if (queryExecutor != null) {
+					queryExecutor.shutdown();
+					queryExecutor = null;
+				}
+			}
 		}
+		logRetainedHeap("after analyzing the seeds");
 
 //		IDebugger<TypestateDomainValue<StateNode>> debugger = debugger();
 //		if (debugger instanceof CryptoVizDebugger) {
 //			CryptoVizDebugger ideVizDebugger = (CryptoVizDebugger) debugger;
 //			ideVizDebugger.addEnsuredPredicates(this.existingPredicates);
 //		}
+		Set<IAnalysisSeed> skippedSeeds = drainWorkList();
+		if (!skippedSeeds.isEmpty()) {
+			logger.warn("The time budget of " + timeBudget + " ms is exhausted, " + skippedSeeds.size() + " analysis seeds were not analyzed. The results are partial.");
+		}
+		listener.beforeFinalPredicateCheck();
 		predicateHandler.checkPredicates();
+		listener.afterFinalPredicateCheck();
 
 		for (AnalysisSeedWithSpecification seed : getAnalysisSeeds()) {
-			if (seed.isSecure()) {
+			if (seed.isSecure() && !skippedSeeds.contains(seed)) {
 				listener.onSecureObjectFound(seed);
 			}
 		}
+		if (!skippedSeeds.isEmpty()) {
+			listener.analysisIncomplete(skippedSeeds);
+		}
 		
 		listener.afterAnalysis();
 		elapsed = analysisWatch.elapsed(TimeUnit.SECONDS);
 		logger.info("Static Analysis took " + elapsed + " seconds!");
+		logger.info("Backward query cache: " + getBackwardQueryCache());
+		logger.info("Predicate checks of seeds: " + evaluatedPredicateChecks + " evaluated, " + memoizedPredicateChecks + " evaluations saved by reusing the previous result");
 //		debugger().afterAnalysis();
 	}
 
-	private void estimateAnalysisTime() {
-		int remaining = worklist.size();
+	/**
+	 * Counts a check of the required predicates of a seed, called while holding the analysis lock.
+	 *
+	 * @param memoized <code>true</code> if the seed reused the result of its previous check
+	 */
+	void onPredicateCheck(boolean memoized) {
+		if (memoized) {
+			memoizedPredicateChecks++;
+		} else {
+			evaluatedPredicateChecks++;
+		}
+	}
+
+	void onSeedProcessed(IAnalysisSeed seed, long elapsedMillis, int processedSeeds) {
+		getWorklist().seedFinished(seed, elapsedMillis);
+		getAnalysisListener().addProgress(processedSeeds, getWorklist().size());
+		logProgress();
+	}
+
+	/**
+	 * Logs the progress at most every {@value #PROGRESS_LOG_INTERVAL_SECONDS} seconds. Detailed
+	 * timings per seed and rule are collected by the {@link crypto.reporting.MetricsReporter}.
+	 */
+	private void logProgress() {
+		int remaining = getWorklist().size();
 		solvedObject++;
-		if (remaining != 0) {
-//			Duration elapsed = analysisWatch.elapsed();
-//			Duration estimate = elapsed.dividedBy(solvedObject);
-//			Duration remainingTime = estimate.multipliedBy(remaining);
-//			System.out.println(String.format("Analysis Time: %s", elapsed));
-//			System.out.println(String.format("Estimated Time: %s", remainingTime));
-			logger.info(String.format("Analyzed Objects: %s of %s", solvedObject, remaining + solvedObject));
-			logger.info(String.format("Percentage Completed: %s\n",
-					((float) Math.round((float) solvedObject * 100 / (remaining + solvedObject))) / 100));
+		long elapsed = analysisWatch.elapsed(TimeUnit.SECONDS);
+		if (remaining != 0 && elapsed >= nextProgressLog) {
+			nextProgressLog = elapsed + PROGRESS_LOG_INTERVAL_SECONDS;
+			logger.info("Analyzed Objects: {} of {}", solvedObject, remaining + solvedObject);
 		}
 	}
 
 	private void initialize() {
-		ReachableMethods rm = Scene.v().getReachableMethods();
-		QueueReader<MethodOrMethodContext> listener = rm.listener();
-		while (listener.hasNext()) {
-			MethodOrMethodContext next = listener.next();
-			SootMethod method = next.method();
-			if (method == null || !method.hasActiveBody() || !method.getDeclaringClass().isApplicationClass()) {
-				continue;
+		List<SootMethod> methods = SeedDiscovery.reachableApplicationMethods();
+		SeedDiscovery seedDiscovery = new SeedDiscovery(new CallSiteIndex(getClassSpecifictions()), numberOfThreads());
+		for (DiscoveredCallSites callSites : seedDiscovery.discover(methods)) {
+			for (ForbiddenCall forbiddenCall : callSites.getForbiddenCalls()) {
+				forbiddenCall.report();
 			}
-			for (ClassSpecification spec : getClassSpecifictions()) {
-				spec.invokesForbiddenMethod(method);
-				if (spec.getRule().getClassName().equals("javax.crypto.SecretKey")) {
-					continue;
-				}
-				for (Query seed : spec.getInitialSeeds(method)) {
-					getOrCreateSeedWithSpec(new AnalysisSeedWithSpecification(this, seed.stmt(), seed.var(), spec));
-				}
+			for (Entry<ClassSpecification, WeightedForwardQuery<TransitionFunction>> seed : callSites.getSeeds()) {
+				getOrCreateSeedWithSpec(new AnalysisSeedWithSpecification(this, seed.getValue().stmt(), seed.getValue().var(), seed.getKey()));
 			}
 		}
 	}
@@ -146,28 +215,213 @@ public abstract class CryptoScanner {
 	}
 
 	protected void addToWorkList(IAnalysisSeed analysisSeedWithSpecification) {
-		worklist.add(analysisSeedWithSpecification);
+		synchronized (analysisLock) {
+			getWorklist().add(analysisSeedWithSpecification);
+			analysisLock.notifyAll();
+		}
+	}
+
+	IAnalysisSeed pollWorkList() {
+		synchronized (analysisLock) {
+			if (isTimeBudgetExhausted()) {
+				return null;
+			}
+			return getWorklist().poll();
+		}
+	}
+
+	private boolean isTimeBudgetExhausted() {
+		return timeBudget > 0 && analysisWatch.elapsed(TimeUnit.MILLISECONDS) >= timeBudget;
+	}
+
+	/**
+	 * @return the remaining time budget of the analysis in milliseconds, -1 if the analysis has no time budget
+	 */
+	public long getRemainingTimeBudget() {
+		if (timeBudget <= 0) {
+			return -1;
+		}
+		return Math.max(0, timeBudget - analysisWatch.elapsed(TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * @return the number of seeds waiting in the worklist
+	 */
+	public int getRemainingSeeds() {
+		synchronized (analysisLock) {
+			return getWorklist().size();
+		}
+	}
+
+	private Set<IAnalysisSeed> drainWorkList() {
+		synchronized (analysisLock) {
+			Set<IAnalysisSeed> remaining = Sets.newLinkedHashSet();
+			IAnalysisSeed seed;
+			while ((seed = getWorklist().poll()) != null) {
+				remaining.add(seed);
+			}
+			return remaining;
+		}
+	}
+
+	private SeedScheduler getWorklist() {
+		synchronized (analysisLock) {
+			if (worklist == null) {
+				worklist = createSeedScheduler();
+			}
+			return worklist;
+		}
+	}
+
+	/**
+	 * Creates the worklist that decides in which order the seeds are executed. By default, seeds of
+	 * rules that ensure predicates are executed before the seeds of rules requiring them, otherwise
+	 * seeds are executed in the order they are discovered.
+	 */
+	protected SeedScheduler createSeedScheduler() {
+		List<CrySLRule> rules = Lists.newArrayList();
+		for (ClassSpecification spec : getClassSpecifictions()) {
+			rules.add(spec.getRule());
+		}
+		return new PrioritySeedScheduler(new RuleDependencyOrder(rules));
 	}
 
 	public AnalysisSeedWithEnsuredPredicate getOrCreateSeed(Node<Statement,Val> factAtStatement) {
-		boolean addToWorklist = false;
-		if (!seedsWithoutSpec.containsKey(factAtStatement))
-			addToWorklist = true;
+		synchronized (analysisLock) {
+			boolean addToWorklist = false;
+			if (!seedsWithoutSpec.containsKey(factAtStatement))
+				addToWorklist = true;
 
-		AnalysisSeedWithEnsuredPredicate seed = seedsWithoutSpec.getOrCreate(factAtStatement);
-		if (addToWorklist)
-			addToWorkList(seed);
-		return seed;
+			AnalysisSeedWithEnsuredPredicate seed = seedsWithoutSpec.getOrCreate(factAtStatement);
+			if (addToWorklist)
+				addToWorkList(seed);
+			return seed;
+		}
 	}
 
 	public AnalysisSeedWithSpecification getOrCreateSeedWithSpec(AnalysisSeedWithSpecification factAtStatement) {
-		boolean addToWorklist = false;
-		if (!seedsWithSpec.containsKey(factAtStatement))
-			addToWorklist = true;
-		AnalysisSeedWithSpecification seed = seedsWithSpec.getOrCreate(factAtStatement);
-		if (addToWorklist)
-			addToWorkList(seed);
-		return seed;
+		synchronized (analysisLock) {
+			boolean addToWorklist = false;
+			if (!seedsWithSpec.containsKey(factAtStatement))
+				addToWorklist = true;
+			AnalysisSeedWithSpecification seed = seedsWithSpec.getOrCreate(factAtStatement);
+			if (addToWorklist) {
+				predicateHandler.onSeedCreated(seed);
+				addToWorkList(seed);
+			}
+			return seed;
+		}
+	}
+
+	/**
+	 * @return the policy assigning timeouts to the queries of the analysis
+	 */
+	public TimeoutPolicy getTimeoutPolicy() {
+		synchronized (analysisLock) {
+			if (timeoutPolicy == null) {
+				timeoutPolicy = createTimeoutPolicy();
+			}
+			return timeoutPolicy;
+		}
+	}
+
+	/**
+	 * Creates the policy assigning timeouts to the queries of the analysis. By default, every query
+	 * times out after {@value FixedTimeoutPolicy#DEFAULT_TIMEOUT_MS} ms.
+	 */
+	protected TimeoutPolicy createTimeoutPolicy() {
+		return new FixedTimeoutPolicy();
+	}
+
+	public BackwardQueryCache getBackwardQueryCache() {
+		synchronized (analysisLock) {
+			if (backwardQueryCache == null) {
+				backwardQueryCache = createBackwardQueryCache();
+			}
+			return backwardQueryCache;
+		}
+	}
+
+	public LocalConstantResolver getLocalConstantResolver() {
+		return localConstantResolver;
+	}
+
+	/**
+	 * Whether parameters that are constants assigned in the same method are resolved by the
+	 * {@link LocalConstantResolver} instead of a Boomerang query. Defaults to <code>true</code>.
+	 */
+	public boolean resolveLocalConstants() {
+		return true;
+	}
+
+	public SubtypeOracle getSubtypeOracle() {
+		return subtypeOracle;
+	}
+
+	public ArrayStoreIndex getArrayStoreIndex() {
+		return arrayStoreIndex;
+	}
+
+	/**
+	 * Creates the cache sharing the results of the value extraction queries between all seeds. By
+	 * default, it keeps at most {@value BackwardQueryCache#DEFAULT_MAXIMUM_SIZE} results.
+	 */
+	protected BackwardQueryCache createBackwardQueryCache() {
+		return new BackwardQueryCache(BackwardQueryCache.DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * The time the analysis may take, measured from the start of {@link #scan(List)}. Once it is
+	 * exhausted, no further seeds are executed and the results of the seeds analyzed so far are
+	 * reported as partial results. Defaults to 0, which means the analysis is not limited.
+	 */
+	public long timeBudgetInMillis() {
+		return 0;
+	}
+
+	/**
+	 * The number of threads used to execute the analysis seeds. Defaults to a single thread.
+	 */
+	public int numberOfThreads() {
+		return 1;
+	}
+
+	/**
+	 * The executor solving the value extraction queries of a seed concurrently. It uses as many
+	 * threads as there are seed threads and is shared by all seeds.
+	 *
+	 * @return the executor, <code>null</code> if the analysis runs on a single thread and the queries are solved one after another
+	 */
+	public ExecutorService getQueryExecutor() {
+		synchronized (analysisLock) {
+			if (queryExecutor == null && analysisThreads > 1) {
+				queryExecutor = Executors.newFixedThreadPool(analysisThreads, new ThreadFactoryBuilder().setNameFormat("CryptoAnalysis-Query-%d").setDaemon(true).build());
+			}
+			return queryExecutor;
+		}
+	}
+
+	/**
+	 * Logs the heap in use. Only with debug logging, a garbage collection is triggered first to log
+	 * the heap retained by live objects, since a full collection stops the analysis.
+	 */
+	private void logRetainedHeap(String when) {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		if (logger.isDebugEnabled()) {
+			memory.gc();
+			logger.debug("Retained heap " + when + ": " + memory.getHeapMemoryUsage().getUsed() / (1024 * 1024) + " MB");
+		} else {
+			logger.info("Used heap " + when + ": " + memory.getHeapMemoryUsage().getUsed() / (1024 * 1024) + " MB");
+		}
+	}
+
+	/**
+	 * Lock guarding the state that is shared between analysis seeds, i.e. the worklist, the seed
+	 * maps and the {@link PredicateHandler}. Seeds only hold it while they exchange predicates and
+	 * results, the typestate and value extraction queries run without it.
+	 */
+	public Object getAnalysisLock() {
+		return analysisLock;
 	}
 
 	public Debugger<TransitionFunction> debugger(IDEALSeedSolver<TransitionFunction> solver,
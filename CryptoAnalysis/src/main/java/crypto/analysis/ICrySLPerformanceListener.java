@@ -16,6 +16,21 @@ public interface ICrySLPerformanceListener {
 
 	void afterAnalysis();
 
+	default void beforeSeedDiscovery() {
+	}
+
+	default void afterSeedDiscovery() {
+	}
+
+	/**
+	 * Called before the predicates are checked once more after all seeds have been analyzed.
+	 */
+	default void beforeFinalPredicateCheck() {
+	}
+
+	default void afterFinalPredicateCheck() {
+	}
+
 	void beforeConstraintCheck(AnalysisSeedWithSpecification analysisSeedWithSpecification);
 
 	void afterConstraintCheck(AnalysisSeedWithSpecification analysisSeedWithSpecification);
@@ -26,6 +41,12 @@ public interface ICrySLPerformanceListener {
 	
 	void seedStarted(IAnalysisSeed analysisSeedWithSpecification);
 
+	default void beforeTypestateAnalysis(IAnalysisSeed seed) {
+	}
+
+	default void afterTypestateAnalysis(IAnalysisSeed seed) {
+	}
+
 	void boomerangQueryStarted(Query seed, BackwardQuery q);
 
 	void boomerangQueryFinished(Query seed, BackwardQuery q);
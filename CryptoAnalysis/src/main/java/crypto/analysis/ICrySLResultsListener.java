@@ -8,6 +8,7 @@ import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.results.ForwardBoomerangResults;
 import crypto.analysis.errors.AbstractError;
+import crypto.boomerang.QueryTimeout;
 import crypto.extractparameter.CallSiteWithParamIndex;
 import crypto.extractparameter.ExtractedValue;
 import crypto.interfaces.ISLConstraint;
@@ -21,6 +22,17 @@ public interface ICrySLResultsListener {
 	void checkedConstraints(AnalysisSeedWithSpecification analysisSeedWithSpecification, Collection<ISLConstraint> relConstraints);
 	
 	void onSeedTimeout(Node<Statement,Val> seed);
+
+	/**
+	 * Called when a query of the analysis exceeds its timeout. By default, the call is forwarded to
+	 * {@link #onSeedTimeout(Node)}.
+	 * 
+	 * @param seed the seed or, for value extraction queries, the queried value
+	 * @param timeout the timeout that was exceeded and the policy it was derived from
+	 */
+	default void onSeedTimeout(Node<Statement,Val> seed, QueryTimeout timeout) {
+		onSeedTimeout(seed);
+	}
 	
 	void onSeedFinished(IAnalysisSeed seed, ForwardBoomerangResults<TransitionFunction> analysisResults);
 	
@@ -32,4 +44,13 @@ public interface ICrySLResultsListener {
 
 	void addProgress(int processedSeeds, int workListsize);
 
+	/**
+	 * Called before the analysis finishes if it stopped before all seeds were analyzed, e.g. because
+	 * its time budget was exhausted. All results reported afterwards are partial.
+	 * 
+	 * @param skippedSeeds the seeds that were not analyzed
+	 */
+	default void analysisIncomplete(Collection<IAnalysisSeed> skippedSeeds) {
+	}
+
 }
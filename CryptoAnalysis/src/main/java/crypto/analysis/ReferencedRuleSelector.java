@@ -0,0 +1,123 @@
+package crypto.analysis;
+
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+import crypto.analysis.scheduling.RuleDependencyOrder;
+import crypto.rules.CrySLPredicate;
+import crypto.rules.CrySLRule;
+import soot.ArrayType;
+import soot.Local;
+import soot.RefType;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.jimple.Stmt;
+
+/**
+ * Selects the rules the application can make use of, such that only those are turned into
+ * {@link ClassSpecification}s with their state machines and resolved methods. A rule is selected if
+ * its class, or a subtype of it, is referenced in the reachable methods of the application, i.e.
+ * it declares a method called or is the type of a local. These are the methods in which seeds and
+ * calls to forbidden methods are searched, so no seed is lost by leaving out the other rules.
+ *
+ * The rules ensuring a predicate required by a selected rule are selected as well, transitively,
+ * since the required predicates cannot be satisfied otherwise.
+ */
+public class ReferencedRuleSelector {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReferencedRuleSelector.class);
+
+	/**
+	 * @param rules the rules loaded
+	 * @return the rules to analyze, in the order of the rules loaded
+	 */
+	public List<CrySLRule> select(Collection<CrySLRule> rules) {
+		Set<String> referencedClasses = collectReferencedClasses(SeedDiscovery.reachableApplicationMethods());
+
+		SetMultimap<String, CrySLRule> ensuringRules = HashMultimap.create();
+		for (CrySLRule rule : rules) {
+			for (CrySLPredicate pred : rule.getPredicates()) {
+				if (!pred.isNegated()) {
+					ensuringRules.put(pred.getPredName(), rule);
+				}
+			}
+		}
+
+		Set<CrySLRule> selected = Sets.newHashSet();
+		Deque<CrySLRule> worklist = Lists.newLinkedList();
+		for (CrySLRule rule : rules) {
+			if (referencedClasses.contains(rule.getClassName()) && selected.add(rule)) {
+				worklist.add(rule);
+			}
+		}
+		while (!worklist.isEmpty()) {
+			CrySLRule rule = worklist.poll();
+			for (CrySLPredicate pred : RuleDependencyOrder.requiredPredicates(rule)) {
+				for (CrySLRule ensuringRule : ensuringRules.get(pred.getPredName())) {
+					if (selected.add(ensuringRule)) {
+						worklist.add(ensuringRule);
+					}
+				}
+			}
+		}
+
+		List<CrySLRule> result = Lists.newArrayList();
+		for (CrySLRule rule : rules) {
+			if (selected.contains(rule)) {
+				result.add(rule);
+			}
+		}
+		LOGGER.info("Selected {} of {} rules for the API classes referenced by the application", result.size(), rules.size());
+		return result;
+	}
+
+	private Set<String> collectReferencedClasses(Collection<SootMethod> methods) {
+		Set<SootClass> classes = Sets.newHashSet();
+		for (SootMethod method : methods) {
+			for (Local local : method.getActiveBody().getLocals()) {
+				addClass(local.getType(), classes);
+			}
+			for (Unit u : method.getActiveBody().getUnits()) {
+				if (u instanceof Stmt && ((Stmt) u).containsInvokeExpr()) {
+					classes.add(((Stmt) u).getInvokeExpr().getMethodRef().getDeclaringClass());
+				}
+			}
+		}
+
+		// A rule of a super class or interface also applies to the classes referenced
+		Set<String> names = Sets.newHashSet();
+		Deque<SootClass> worklist = Lists.newLinkedList(classes);
+		while (!worklist.isEmpty()) {
+			SootClass sootClass = worklist.poll();
+			if (!names.add(sootClass.getName())) {
+				continue;
+			}
+			if (sootClass.hasSuperclass()) {
+				worklist.add(sootClass.getSuperclass());
+			}
+			worklist.addAll(sootClass.getInterfaces());
+		}
+		return names;
+	}
+
+	private static void addClass(Type type, Set<SootClass> classes) {
+		if (type instanceof ArrayType) {
+			type = ((ArrayType) type).baseType;
+		}
+		if (type instanceof RefType) {
+			classes.add(((RefType) type).getSootClass());
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package crypto.analysis;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import boomerang.WeightedForwardQuery;
+import crypto.rules.CrySLForbiddenMethod;
+import soot.MethodOrMethodContext;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.toolkits.callgraph.ReachableMethods;
+import soot.util.queue.QueueReader;
+import typestate.TransitionFunction;
+
+/**
+ * Searches the bodies of a snapshot of reachable methods for seeds and calls to forbidden methods.
+ * Each method body is checked independently, hence the search is distributed over a fork-join pool
+ * when more than one thread is configured. The findings are returned per method in the order of the
+ * snapshot, so that merging them yields the same seeds and errors as a sequential search.
+ *
+ * Resolving the callee of a call site may add phantom methods to the Scene, which is not
+ * thread-safe. Hence the callees are resolved on the calling thread before the search is forked.
+ */
+class SeedDiscovery {
+
+	private static final int METHODS_PER_TASK = 32;
+
+	private final CallSiteIndex callSiteIndex;
+	private final int numberOfThreads;
+
+	SeedDiscovery(CallSiteIndex callSiteIndex, int numberOfThreads) {
+		this.callSiteIndex = callSiteIndex;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	/**
+	 * @return the reachable methods of application classes that have a body, the methods seeds are searched in
+	 */
+	static List<SootMethod> reachableApplicationMethods() {
+		List<SootMethod> methods = Lists.newArrayList();
+		ReachableMethods rm = Scene.v().getReachableMethods();
+		QueueReader<MethodOrMethodContext> listener = rm.listener();
+		while (listener.hasNext()) {
+			MethodOrMethodContext next = listener.next();
+			SootMethod method = next.method();
+			if (method == null || !method.hasActiveBody() || !method.getDeclaringClass().isApplicationClass()) {
+				continue;
+			}
+			methods.add(method);
+		}
+		return methods;
+	}
+
+	List<DiscoveredCallSites> discover(List<SootMethod> methods) {
+		DiscoveredCallSites[] results = new DiscoveredCallSites[methods.size()];
+		Map<Unit, SootMethod> callees = resolveCallees(methods);
+		if (numberOfThreads == 1) {
+			for (int i = 0; i < methods.size(); i++) {
+				results[i] = discover(methods.get(i), callees);
+			}
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+			try {
+				pool.invoke(new DiscoveryTask(methods, callees, results, 0, methods.size()));
+			} finally {
+				pool.shutdown();
+			}
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * @return the resolved callees of the call sites whose callee is indexed
+	 */
+	private Map<Unit, SootMethod> resolveCallees(List<SootMethod> methods) {
+		Map<Unit, SootMethod> callees = Maps.newHashMap();
+		for (SootMethod method : methods) {
+			for (Unit u : method.getActiveBody().getUnits()) {
+				if (!(u instanceof Stmt) || !((Stmt) u).containsInvokeExpr()) {
+					continue;
+				}
+				SootMethod callee = ((Stmt) u).getInvokeExpr().getMethod();
+				if (callSiteIndex.isIndexed(callee)) {
+					callees.put(u, callee);
+				}
+			}
+		}
+		return callees;
+	}
+
+	private DiscoveredCallSites discover(SootMethod method, Map<Unit, SootMethod> callees) {
+		DiscoveredCallSites callSites = new DiscoveredCallSites();
+		for (Unit u : method.getActiveBody().getUnits()) {
+			SootMethod callee = callees.get(u);
+			if (callee == null) {
+				continue;
+			}
+			Stmt stmt = (Stmt) u;
+			for (Entry<ClassSpecification, CrySLForbiddenMethod> forbidden : callSiteIndex.getSpecificationsForbidding(callee).entrySet()) {
+				callSites.forbiddenCalls.add(new ForbiddenCall(forbidden.getKey(), stmt, callee, forbidden.getValue()));
+			}
+			for (ClassSpecification spec : callSiteIndex.getSpecificationsWithInitialTransition(callee)) {
+				for (WeightedForwardQuery<TransitionFunction> seed : spec.getInitialSeeds(method, u, callee)) {
+					callSites.seeds.add(new SimpleEntry<>(spec, seed));
+				}
+			}
+		}
+		return callSites;
+	}
+
+	private class DiscoveryTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		private final List<SootMethod> methods;
+		private final Map<Unit, SootMethod> callees;
+		private final DiscoveredCallSites[] results;
+		private final int from;
+		private final int to;
+
+		DiscoveryTask(List<SootMethod> methods, Map<Unit, SootMethod> callees, DiscoveredCallSites[] results, int from, int to) {
+			this.methods = methods;
+			this.callees = callees;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= METHODS_PER_TASK) {
+				for (int i = from; i < to; i++) {
+					results[i] = discover(methods.get(i), callees);
+				}
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new DiscoveryTask(methods, callees, results, from, middle), new DiscoveryTask(methods, callees, results, middle, to));
+		}
+	}
+
+	/**
+	 * The seeds and forbidden method calls found within a single method body.
+	 */
+	static class DiscoveredCallSites {
+
+		private final List<Entry<ClassSpecification, WeightedForwardQuery<TransitionFunction>>> seeds = Lists.newArrayList();
+		private final List<ForbiddenCall> forbiddenCalls = Lists.newArrayList();
+
+		List<Entry<ClassSpecification, WeightedForwardQuery<TransitionFunction>>> getSeeds() {
+			return seeds;
+		}
+
+		List<ForbiddenCall> getForbiddenCalls() {
+			return forbiddenCalls;
+		}
+	}
+
+	static class ForbiddenCall {
+
+		private final ClassSpecification spec;
+		private final Stmt stmt;
+		private final SootMethod callee;
+		private final CrySLForbiddenMethod forbiddenMethod;
+
+		ForbiddenCall(ClassSpecification spec, Stmt stmt, SootMethod callee, CrySLForbiddenMethod forbiddenMethod) {
+			this.spec = spec;
+			this.stmt = stmt;
+			this.callee = callee;
+			this.forbiddenMethod = forbiddenMethod;
+		}
+
+		void report() {
+			spec.reportForbiddenMethodCall(stmt, callee, forbiddenMethod);
+		}
+	}
+}
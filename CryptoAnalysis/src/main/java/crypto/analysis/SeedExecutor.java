@@ -0,0 +1,109 @@
+package crypto.analysis;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+
+/**
+ * Drains the worklist of a {@link CryptoScanner} with a fixed number of worker threads. Seeds that
+ * are added to the worklist while other seeds are executed are picked up by the next idle worker.
+ * The executor terminates once the worklist is empty and no seed is running anymore.
+ *
+ * With a single thread, all seeds are executed on the calling thread in worklist order.
+ */
+class SeedExecutor {
+
+	private final CryptoScanner scanner;
+	private final int numberOfThreads;
+	private int runningSeeds;
+	private int processedSeeds;
+
+	SeedExecutor(CryptoScanner scanner, int numberOfThreads) {
+		this.scanner = scanner;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	void run() {
+		if (numberOfThreads == 1) {
+			work();
+			return;
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads, new SeedThreadFactory());
+		List<Future<?>> workers = Lists.newArrayList();
+		for (int i = 0; i < numberOfThreads; i++) {
+			workers.add(pool.submit(this::work));
+		}
+		pool.shutdown();
+		try {
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		} catch (InterruptedException e) {
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			pool.shutdownNow();
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException("Failed to execute analysis seed", e.getCause());
+		}
+	}
+
+	private void work() {
+		Object lock = scanner.getAnalysisLock();
+		while (true) {
+			IAnalysisSeed seed;
+			synchronized (lock) {
+				seed = scanner.pollWorkList();
+				while (seed == null && runningSeeds > 0) {
+					try {
+						lock.wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					seed = scanner.pollWorkList();
+				}
+				if (seed == null) {
+					// Worklist is drained and no running seed can add new ones.
+					lock.notifyAll();
+					return;
+				}
+				runningSeeds++;
+			}
+			Stopwatch watch = Stopwatch.createStarted();
+			try {
+				scanner.getAnalysisListener().discoveredSeed(seed);
+				seed.execute();
+			} finally {
+				synchronized (lock) {
+					runningSeeds--;
+					processedSeeds++;
+					scanner.onSeedProcessed(seed, watch.elapsed(TimeUnit.MILLISECONDS), processedSeeds);
+					lock.notifyAll();
+				}
+			}
+		}
+	}
+
+	private static class SeedThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "CryptoAnalysis-Seed-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
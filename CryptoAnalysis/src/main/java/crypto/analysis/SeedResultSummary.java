@@ -0,0 +1,77 @@
+package crypto.analysis;
+
+import java.util.Collections;
+import java.util.Set;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import com.google.common.collect.Table.Cell;
+
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.results.ForwardBoomerangResults;
+import sync.pds.solver.nodes.Node;
+import typestate.TransitionFunction;
+import typestate.finiteautomata.ITransition;
+import typestate.finiteautomata.State;
+
+/**
+ * The parts of the typestate analysis results of a seed that are used after the seed was analyzed:
+ * the statement/value pairs the object reaches together with its target states, the statements
+ * changing its typestate and its data-flow path. Seeds keep this summary instead of the
+ * {@link ForwardBoomerangResults}, such that the solver results can be garbage collected as soon
+ * as the analysis of the seed finished.
+ */
+public class SeedResultSummary {
+
+	private final Table<Statement, Val, Set<State>> reachedStates;
+	private final Set<Statement> typestateChangeStatements;
+	private final Set<Node<Statement, Val>> dataFlowPath;
+
+	public SeedResultSummary(ForwardBoomerangResults<TransitionFunction> results) {
+		Table<Statement, Val, Set<State>> states = HashBasedTable.create();
+		Set<Statement> changes = Sets.newHashSet();
+		for (Cell<Statement, Val, TransitionFunction> c : results.asStatementValWeightTable().cellSet()) {
+			Set<State> targetStates = Sets.newHashSet();
+			for (ITransition t : c.getValue().values()) {
+				if (t.to() != null)
+					targetStates.add(t.to());
+			}
+			states.put(c.getRowKey(), c.getColumnKey(), ImmutableSet.copyOf(targetStates));
+			changes.addAll(c.getValue().getLastStateChangeStatements());
+		}
+		this.reachedStates = ImmutableTable.copyOf(states);
+		this.typestateChangeStatements = ImmutableSet.copyOf(changes);
+		this.dataFlowPath = ImmutableSet.copyOf(results.getDataFlowPath());
+	}
+
+	/**
+	 * @return the statement/value pairs the object reaches mapped to its possible states after the statement
+	 */
+	public Table<Statement, Val, Set<State>> getReachedStates() {
+		return reachedStates;
+	}
+
+	public boolean reaches(Statement stmt, Val val) {
+		return reachedStates.contains(stmt, val);
+	}
+
+	public Set<State> getTargetStates(Statement stmt, Val val) {
+		Set<State> states = reachedStates.get(stmt, val);
+		return states == null ? Collections.emptySet() : states;
+	}
+
+	/**
+	 * @return the statements at which the object last changed its typestate
+	 */
+	public Set<Statement> getTypestateChangeStatements() {
+		return typestateChangeStatements;
+	}
+
+	public Set<Node<Statement, Val>> getDataFlowPath() {
+		return dataFlowPath;
+	}
+}
@@ -0,0 +1,33 @@
+package crypto.analysis.scheduling;
+
+import java.util.Comparator;
+
+import crypto.analysis.IAnalysisSeed;
+
+/**
+ * Executes cheap seeds first, such that a single expensive seed does not delay many cheap ones.
+ * The costs are estimated by a {@link SeedCostEstimator}, and the execution times of this run are
+ * recorded into its {@link SeedTimings} for the next run.
+ */
+public class CostBasedSeedScheduler extends PrioritySeedScheduler {
+
+	private final SeedCostEstimator estimator;
+
+	public CostBasedSeedScheduler(SeedCostEstimator estimator) {
+		this(estimator, (first, second) -> 0);
+	}
+
+	/**
+	 * @param estimator estimates the cost of the seeds
+	 * @param tieBreaker seeds are ordered by cost first, the tie breaker only orders seeds of equal cost
+	 */
+	public CostBasedSeedScheduler(SeedCostEstimator estimator, Comparator<IAnalysisSeed> tieBreaker) {
+		super(Comparator.comparingLong(estimator::estimate).thenComparing(tieBreaker));
+		this.estimator = estimator;
+	}
+
+	@Override
+	public void seedFinished(IAnalysisSeed seed, long elapsedMillis) {
+		estimator.getTimings().record(seed, elapsedMillis, estimator.staticEstimate(seed));
+	}
+}
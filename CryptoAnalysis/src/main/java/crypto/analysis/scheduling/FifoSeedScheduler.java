@@ -0,0 +1,34 @@
+package crypto.analysis.scheduling;
+
+import java.util.LinkedList;
+
+import com.google.common.collect.Lists;
+
+import crypto.analysis.IAnalysisSeed;
+
+/**
+ * Executes the seeds in the order they are discovered.
+ */
+public class FifoSeedScheduler implements SeedScheduler {
+
+	private final LinkedList<IAnalysisSeed> worklist = Lists.newLinkedList();
+
+	@Override
+	public void add(IAnalysisSeed seed) {
+		worklist.add(seed);
+	}
+
+	@Override
+	public IAnalysisSeed poll() {
+		return worklist.poll();
+	}
+
+	@Override
+	public int size() {
+		return worklist.size();
+	}
+
+	@Override
+	public void seedFinished(IAnalysisSeed seed, long elapsedMillis) {
+	}
+}
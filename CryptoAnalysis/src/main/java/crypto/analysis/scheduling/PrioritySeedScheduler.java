@@ -0,0 +1,52 @@
+package crypto.analysis.scheduling;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import crypto.analysis.IAnalysisSeed;
+
+/**
+ * Executes the seeds in the order given by a {@link Comparator}. Seeds that compare equal are
+ * executed in the order they are discovered, which keeps the schedule deterministic.
+ */
+public class PrioritySeedScheduler implements SeedScheduler {
+
+	private final PriorityQueue<ScheduledSeed> worklist;
+	private long discovered;
+
+	public PrioritySeedScheduler(Comparator<IAnalysisSeed> order) {
+		Comparator<ScheduledSeed> bySeed = Comparator.comparing(s -> s.seed, order);
+		this.worklist = new PriorityQueue<>(bySeed.thenComparingLong(s -> s.discoveryIndex));
+	}
+
+	@Override
+	public void add(IAnalysisSeed seed) {
+		worklist.add(new ScheduledSeed(seed, discovered++));
+	}
+
+	@Override
+	public IAnalysisSeed poll() {
+		ScheduledSeed next = worklist.poll();
+		return next == null ? null : next.seed;
+	}
+
+	@Override
+	public int size() {
+		return worklist.size();
+	}
+
+	@Override
+	public void seedFinished(IAnalysisSeed seed, long elapsedMillis) {
+	}
+
+	private static class ScheduledSeed {
+
+		private final IAnalysisSeed seed;
+		private final long discoveryIndex;
+
+		private ScheduledSeed(IAnalysisSeed seed, long discoveryIndex) {
+			this.seed = seed;
+			this.discoveryIndex = discoveryIndex;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package crypto.analysis.scheduling;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+import crypto.analysis.AnalysisSeedWithSpecification;
+import crypto.analysis.IAnalysisSeed;
+import crypto.constraints.ConstraintSolver;
+import crypto.interfaces.ISLConstraint;
+import crypto.rules.CrySLConstraint;
+import crypto.rules.CrySLPredicate;
+import crypto.rules.CrySLRule;
+
+/**
+ * Orders seeds along the requires/ensures dependencies of their rules. A rule depends on another
+ * rule if it requires a predicate the other rule ensures, e.g. Cipher requires the predicate
+ * generatedKey ensured by KeyGenerator. Executing the seeds of KeyGenerator first means the
+ * predicate is usually present when the Cipher seed runs, instead of arriving later and
+ * re-propagating through the already finished seed.
+ *
+ * Each rule is assigned a level: rules without dependencies are on level 0, every other rule is one
+ * level above its highest dependency. Rules that depend on each other in a cycle are put on the same
+ * level, the cycle is then resolved by the tie-breaking of the scheduler. Seeds without a rule only
+ * carry predicates to other seeds and are executed first.
+ */
+public class RuleDependencyOrder implements Comparator<IAnalysisSeed> {
+
+	private final Map<CrySLRule, Integer> levels = Maps.newHashMap();
+
+	public RuleDependencyOrder(Collection<CrySLRule> rules) {
+		SetMultimap<String, CrySLRule> ensuringRules = HashMultimap.create();
+		for (CrySLRule rule : rules) {
+			for (CrySLPredicate pred : rule.getPredicates()) {
+				if (!pred.isNegated()) {
+					ensuringRules.put(pred.getPredName(), rule);
+				}
+			}
+		}
+		SetMultimap<CrySLRule, CrySLRule> dependencies = HashMultimap.create();
+		for (CrySLRule rule : rules) {
+			for (CrySLPredicate pred : requiredPredicates(rule)) {
+				dependencies.putAll(rule, ensuringRules.get(pred.getPredName()));
+			}
+		}
+		new LevelComputation(dependencies).run(rules);
+	}
+
+	/**
+	 * @param rule a loaded rule
+	 * @return the dependency level of the rule, 0 for rules that do not require predicates of other rules
+	 */
+	public int getLevel(CrySLRule rule) {
+		Integer level = levels.get(rule);
+		return level == null ? 0 : level;
+	}
+
+	@Override
+	public int compare(IAnalysisSeed first, IAnalysisSeed second) {
+		return Integer.compare(level(first), level(second));
+	}
+
+	private int level(IAnalysisSeed seed) {
+		if (!(seed instanceof AnalysisSeedWithSpecification)) {
+			return -1;
+		}
+		return getLevel(((AnalysisSeedWithSpecification) seed).getSpec().getRule());
+	}
+
+	/**
+	 * @param rule a rule
+	 * @return the predicates the rule requires, including the alternatives of required predicates
+	 */
+	public static List<CrySLPredicate> requiredPredicates(CrySLRule rule) {
+		List<CrySLPredicate> preds = Lists.newArrayList();
+		for (ISLConstraint cons : rule.getConstraints()) {
+			preds.addAll(requiredPredicates(cons));
+		}
+		return preds;
+	}
+
+	private static List<CrySLPredicate> requiredPredicates(ISLConstraint cons) {
+		List<CrySLPredicate> preds = Lists.newArrayList();
+		if (cons instanceof CrySLPredicate) {
+			CrySLPredicate pred = (CrySLPredicate) cons;
+			if (!ConstraintSolver.predefinedPreds.contains(pred.getPredName())) {
+				preds.add(pred);
+			}
+		} else if (cons instanceof CrySLConstraint) {
+			// Alternatives of required predicates, e.g. generatedKey[key] || generatedKeypair[key]
+			preds.addAll(requiredPredicates(((CrySLConstraint) cons).getLeft()));
+			preds.addAll(requiredPredicates(((CrySLConstraint) cons).getRight()));
+		}
+		return preds;
+	}
+
+	/**
+	 * Tarjan's algorithm on the dependency graph. A strongly connected component is completed only
+	 * after all components it depends on, so the levels of the dependencies are known at that point.
+	 */
+	private class LevelComputation {
+
+		private final SetMultimap<CrySLRule, CrySLRule> dependencies;
+		private final Map<CrySLRule, Integer> index = Maps.newHashMap();
+		private final Map<CrySLRule, Integer> lowLink = Maps.newHashMap();
+		private final Deque<CrySLRule> stack = Lists.newLinkedList();
+		private final Set<CrySLRule> onStack = Sets.newHashSet();
+
+		private LevelComputation(SetMultimap<CrySLRule, CrySLRule> dependencies) {
+			this.dependencies = dependencies;
+		}
+
+		private void run(Collection<CrySLRule> rules) {
+			for (CrySLRule rule : rules) {
+				if (!index.containsKey(rule)) {
+					visit(rule);
+				}
+			}
+		}
+
+		private void visit(CrySLRule rule) {
+			index.put(rule, index.size());
+			lowLink.put(rule, index.get(rule));
+			stack.push(rule);
+			onStack.add(rule);
+			for (CrySLRule dependency : dependencies.get(rule)) {
+				if (!index.containsKey(dependency)) {
+					visit(dependency);
+					lowLink.put(rule, Math.min(lowLink.get(rule), lowLink.get(dependency)));
+				} else if (onStack.contains(dependency)) {
+					lowLink.put(rule, Math.min(lowLink.get(rule), index.get(dependency)));
+				}
+			}
+			if (!lowLink.get(rule).equals(index.get(rule))) {
+				return;
+			}
+			List<CrySLRule> component = Lists.newArrayList();
+			CrySLRule member;
+			do {
+				member = stack.pop();
+				onStack.remove(member);
+				component.add(member);
+			} while (!member.equals(rule));
+
+			int level = 0;
+			for (CrySLRule r : component) {
+				for (CrySLRule dependency : dependencies.get(r)) {
+					if (!component.contains(dependency)) {
+						level = Math.max(level, levels.get(dependency) + 1);
+					}
+				}
+			}
+			for (CrySLRule r : component) {
+				levels.put(r, level);
+			}
+		}
+	}
+}
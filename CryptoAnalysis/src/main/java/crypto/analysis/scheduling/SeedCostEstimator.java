@@ -0,0 +1,101 @@
+package crypto.analysis.scheduling;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import crypto.analysis.AnalysisSeedWithSpecification;
+import crypto.analysis.IAnalysisSeed;
+import crypto.rules.CrySLRule;
+import soot.Scene;
+import soot.SootMethod;
+import soot.jimple.toolkits.callgraph.Edge;
+
+/**
+ * Estimates how expensive the execution of a seed is. If the seed was executed in an earlier run,
+ * the recorded execution time is used. Otherwise, the cost is estimated from cheap static properties:
+ * the size of the method containing the seed, the number of call graph edges leaving it and the
+ * complexity of the seed's rule (transitions of the usage pattern, constraints and predicates).
+ * 
+ * The static estimate is converted to milliseconds with the ratio of the recorded execution times to
+ * the static estimates of the seeds of earlier runs, such that recorded and estimated seeds are
+ * ordered on one scale. Without recorded static estimates, {@value #DEFAULT_MILLIS_PER_UNIT} ms per
+ * unit are assumed.
+ */
+public class SeedCostEstimator {
+
+	private static final int MAX_COUNTED_CALLEES = 1000;
+	private static final int CALLEE_WEIGHT = 4;
+	private static final int RULE_WEIGHT = 2;
+	static final double DEFAULT_MILLIS_PER_UNIT = 1.0;
+
+	private final SeedTimings timings;
+	private final double millisPerUnit;
+	private final Map<IAnalysisSeed, Long> estimates = Maps.newHashMap();
+	private final Map<IAnalysisSeed, Long> staticEstimates = Maps.newHashMap();
+
+	public SeedCostEstimator(SeedTimings timings) {
+		this.timings = timings;
+		Double calibration = timings.getMillisPerEstimateUnit();
+		this.millisPerUnit = calibration != null ? calibration : DEFAULT_MILLIS_PER_UNIT;
+	}
+
+	/**
+	 * @param seed the seed to execute
+	 * @return the estimated cost, estimates are computed once per seed
+	 */
+	public synchronized long estimate(IAnalysisSeed seed) {
+		Long estimate = estimates.get(seed);
+		if (estimate == null) {
+			estimate = computeEstimate(seed);
+			estimates.put(seed, estimate);
+		}
+		return estimate;
+	}
+
+	/**
+	 * @param seed the seed to execute
+	 * @return the uncalibrated estimate from the static properties of the seed
+	 */
+	public synchronized long staticEstimate(IAnalysisSeed seed) {
+		Long estimate = staticEstimates.get(seed);
+		if (estimate == null) {
+			SootMethod method = seed.getMethod();
+			long methodSize = method.hasActiveBody() ? method.getActiveBody().getUnits().size() : 0;
+			estimate = methodSize + CALLEE_WEIGHT * countCallees(method) + RULE_WEIGHT * ruleComplexity(seed);
+			staticEstimates.put(seed, estimate);
+		}
+		return estimate;
+	}
+
+	public SeedTimings getTimings() {
+		return timings;
+	}
+
+	private long computeEstimate(IAnalysisSeed seed) {
+		Long recorded = timings.get(seed);
+		if (recorded != null) {
+			return recorded;
+		}
+		return Math.round(millisPerUnit * staticEstimate(seed));
+	}
+
+	private int countCallees(SootMethod method) {
+		int callees = 0;
+		Iterator<Edge> edges = Scene.v().getCallGraph().edgesOutOf(method);
+		while (edges.hasNext() && callees < MAX_COUNTED_CALLEES) {
+			edges.next();
+			callees++;
+		}
+		return callees;
+	}
+
+	private int ruleComplexity(IAnalysisSeed seed) {
+		if (!(seed instanceof AnalysisSeedWithSpecification)) {
+			return 0;
+		}
+		CrySLRule rule = ((AnalysisSeedWithSpecification) seed).getSpec().getRule();
+		return rule.getUsagePattern().getAllTransitions().size() + rule.getConstraints().size() + rule.getPredicates().size();
+	}
+}
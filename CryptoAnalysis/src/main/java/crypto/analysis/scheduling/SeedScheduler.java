@@ -0,0 +1,28 @@
+package crypto.analysis.scheduling;
+
+import crypto.analysis.CryptoScanner;
+import crypto.analysis.IAnalysisSeed;
+
+/**
+ * The worklist of the {@link CryptoScanner}. A scheduler decides in which order the discovered
+ * analysis seeds are executed. All methods are called while the scanner's analysis lock is held.
+ */
+public interface SeedScheduler {
+
+	void add(IAnalysisSeed seed);
+
+	/**
+	 * @return the next seed to execute or <code>null</code> if no seed is scheduled
+	 */
+	IAnalysisSeed poll();
+
+	int size();
+
+	/**
+	 * Called once a seed polled from this scheduler finished its execution.
+	 * 
+	 * @param seed the executed seed
+	 * @param elapsedMillis the wall-clock time the execution took
+	 */
+	void seedFinished(IAnalysisSeed seed, long elapsedMillis);
+}
@@ -0,0 +1,119 @@
+package crypto.analysis.scheduling;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+
+import crypto.analysis.AnalysisSeedWithSpecification;
+import crypto.analysis.IAnalysisSeed;
+
+/**
+ * Execution times of analysis seeds, recorded in one run and used to schedule the seeds of the
+ * next run. A seed is identified by its method, statement and rule, which stays stable as long as
+ * the analyzed code does not change. The timings are stored as a properties file, together with the
+ * static estimate of each seed, which calibrates the estimates of new seeds to milliseconds.
+ */
+public class SeedTimings {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SeedTimings.class);
+
+	private final Map<String, Long> timings = Maps.newHashMap();
+	private final Map<String, Long> staticEstimates = Maps.newHashMap();
+	private Double millisPerEstimateUnit;
+
+	/**
+	 * Reads the timings from a file written by {@link #save(File)}. If the file does not exist yet,
+	 * no timings are known.
+	 * 
+	 * @param file the timings file
+	 * @return the recorded timings
+	 */
+	public static SeedTimings load(File file) {
+		SeedTimings seedTimings = new SeedTimings();
+		if (!file.isFile()) {
+			return seedTimings;
+		}
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			properties.load(in);
+		} catch (IOException e) {
+			LOGGER.error("Could not read the seed timings from " + file.getAbsolutePath(), e);
+			return seedTimings;
+		}
+		long totalMillis = 0;
+		long totalUnits = 0;
+		for (String key : properties.stringPropertyNames()) {
+			// <milliseconds> or <milliseconds> <static estimate>
+			String[] values = properties.getProperty(key).trim().split("\\s+");
+			try {
+				long millis = Long.parseLong(values[0]);
+				seedTimings.timings.put(key, millis);
+				if (values.length > 1) {
+					long units = Long.parseLong(values[1]);
+					seedTimings.staticEstimates.put(key, units);
+					totalMillis += millis;
+					totalUnits += units;
+				}
+			} catch (NumberFormatException e) {
+				LOGGER.warn("Ignoring malformed seed timing for " + key);
+			}
+		}
+		if (totalUnits > 0) {
+			seedTimings.millisPerEstimateUnit = (double) totalMillis / totalUnits;
+		}
+		return seedTimings;
+	}
+
+	public void save(File file) {
+		Properties properties = new Properties();
+		for (Map.Entry<String, Long> e : timings.entrySet()) {
+			Long units = staticEstimates.get(e.getKey());
+			properties.setProperty(e.getKey(), units == null ? e.getValue().toString() : e.getValue() + " " + units);
+		}
+		try (OutputStream out = new FileOutputStream(file)) {
+			properties.store(out, "CryptoAnalysis seed execution times in milliseconds");
+		} catch (IOException e) {
+			LOGGER.error("Could not write the seed timings to " + file.getAbsolutePath(), e);
+		}
+	}
+
+	/**
+	 * @return the recorded execution time of the seed in milliseconds or <code>null</code> if the seed was not executed before
+	 */
+	public synchronized Long get(IAnalysisSeed seed) {
+		return timings.get(key(seed));
+	}
+
+	/**
+	 * @return the recorded milliseconds per unit of the static estimate when the timings were loaded,
+	 *         <code>null</code> if no static estimates were recorded
+	 */
+	public Double getMillisPerEstimateUnit() {
+		return millisPerEstimateUnit;
+	}
+
+	/**
+	 * @param seed the executed seed
+	 * @param elapsedMillis the execution time of the seed
+	 * @param staticEstimate the static estimate of the seed by the {@link SeedCostEstimator}
+	 */
+	public synchronized void record(IAnalysisSeed seed, long elapsedMillis, long staticEstimate) {
+		timings.put(key(seed), elapsedMillis);
+		staticEstimates.put(key(seed), staticEstimate);
+	}
+
+	private static String key(IAnalysisSeed seed) {
+		String rule = seed instanceof AnalysisSeedWithSpecification ? ((AnalysisSeedWithSpecification) seed).getSpec().getRule().getClassName() : "ensuredPredicate";
+		return seed.getMethod().getSignature() + " " + seed.stmt() + " " + seed.var() + " " + rule;
+	}
+}
@@ -0,0 +1,113 @@
+package crypto.boomerang;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import crypto.analysis.CryptoScanner;
+import crypto.rules.CrySLRule;
+
+/**
+ * Derives the timeouts from the observed query times instead of using a fixed value. Once enough
+ * queries of a kind finished, a query may run a multiple of the 95th percentile of the recent
+ * query times of its kind. This grants more time when the machine is slow and gives up on
+ * hopeless queries early when it is fast. Until then, the configured timeouts apply. A query that
+ * times out is recorded with its timeout, a lower bound of its actual time, such that the
+ * percentile grows again when queries get slower. The adaptive timeout never exceeds a multiple of
+ * the configured timeout of the query, and a timeout configured for a rule remains an upper bound
+ * for the queries of its seeds. Otherwise, the timeouts would grow by the percentile factor with
+ * every round once more than 5% of the queries time out.
+ *
+ * If the scanner has a time budget, a query never gets more than a multiple of its fair share of
+ * the remaining budget, i.e. the remaining time divided by the remaining seeds per thread.
+ *
+ * The percentile is recomputed every {@value #RECOMPUTE_INTERVAL} queries of a kind, such that
+ * looking up a timeout does not sort the samples.
+ */
+public class AdaptiveTimeoutPolicy implements TimeoutPolicy {
+
+	private static final int MIN_SAMPLES = 20;
+	private static final int MAX_SAMPLES = 500;
+	private static final double PERCENTILE = 0.95;
+	private static final int PERCENTILE_FACTOR = 3;
+	private static final int RECOMPUTE_INTERVAL = 10;
+	private static final int MAX_CONFIGURED_FACTOR = 4;
+	private static final int FAIR_SHARE_FACTOR = 4;
+	private static final int MIN_TIMEOUT_MS = 500;
+
+	private final FixedTimeoutPolicy configured;
+	private final CryptoScanner scanner;
+	private final Map<QueryKind, LinkedList<Long>> samples = new EnumMap<>(QueryKind.class);
+	private final Map<QueryKind, Long> percentiles = new EnumMap<>(QueryKind.class);
+	private final Map<QueryKind, Integer> samplesSincePercentile = new EnumMap<>(QueryKind.class);
+
+	/**
+	 * @param configured the timeouts that apply until enough queries were observed
+	 * @param scanner the scanner providing the remaining time budget and seeds
+	 */
+	public AdaptiveTimeoutPolicy(FixedTimeoutPolicy configured, CryptoScanner scanner) {
+		this.configured = configured;
+		this.scanner = scanner;
+		for (QueryKind kind : QueryKind.values()) {
+			samples.put(kind, new LinkedList<>());
+			samplesSincePercentile.put(kind, 0);
+		}
+	}
+
+	@Override
+	public QueryTimeout getTimeout(CrySLRule rule, QueryKind kind) {
+		QueryTimeout timeout = configured.getTimeout(rule, kind);
+		long millis = timeout.getTimeoutInMillis();
+		String policy = timeout.getPolicy();
+
+		Long percentile = percentile(kind);
+		if (percentile != null) {
+			millis = Math.max(MIN_TIMEOUT_MS, PERCENTILE_FACTOR * percentile);
+			policy = "adaptive timeout from observed " + kind.getName() + " times";
+			QueryTimeout ruleTimeout = configured.getRuleTimeout(rule, kind);
+			if (ruleTimeout != null && ruleTimeout.getTimeoutInMillis() < millis) {
+				millis = ruleTimeout.getTimeoutInMillis();
+				policy = ruleTimeout.getPolicy();
+			} else if ((long) MAX_CONFIGURED_FACTOR * timeout.getTimeoutInMillis() < millis) {
+				millis = (long) MAX_CONFIGURED_FACTOR * timeout.getTimeoutInMillis();
+				policy = "adaptive timeout capped at " + MAX_CONFIGURED_FACTOR + " times the " + timeout.getPolicy();
+			}
+		}
+		long remainingBudget = scanner.getRemainingTimeBudget();
+		if (remainingBudget >= 0) {
+			int seedsPerThread = Math.max(1, scanner.getRemainingSeeds() / Math.max(1, scanner.numberOfThreads()));
+			long share = Math.min(remainingBudget, FAIR_SHARE_FACTOR * remainingBudget / seedsPerThread);
+			if (share < millis) {
+				millis = Math.max(Math.min(MIN_TIMEOUT_MS, remainingBudget), share);
+				policy = "adaptive timeout from remaining time budget";
+			}
+		}
+		return new QueryTimeout(rule, kind, (int) Math.max(1, Math.min(Integer.MAX_VALUE, millis)), policy);
+	}
+
+	@Override
+	public synchronized void queryFinished(QueryTimeout timeout, long elapsedMillis, boolean timedOut) {
+		LinkedList<Long> times = samples.get(timeout.getKind());
+		// The time of a query that timed out is unknown, it took at least its timeout
+		times.add(timedOut ? Math.max(elapsedMillis, timeout.getTimeoutInMillis()) : elapsedMillis);
+		if (times.size() > MAX_SAMPLES) {
+			times.removeFirst();
+		}
+		int newSamples = samplesSincePercentile.get(timeout.getKind()) + 1;
+		if (times.size() >= MIN_SAMPLES && (newSamples >= RECOMPUTE_INTERVAL || !percentiles.containsKey(timeout.getKind()))) {
+			Long[] sorted = times.toArray(new Long[times.size()]);
+			Arrays.sort(sorted);
+			percentiles.put(timeout.getKind(), sorted[(int) Math.ceil(PERCENTILE * sorted.length) - 1]);
+			newSamples = 0;
+		}
+		samplesSincePercentile.put(timeout.getKind(), newSamples);
+	}
+
+	/**
+	 * @return the percentile of the recent times of the kind, <code>null</code> until enough queries finished
+	 */
+	private synchronized Long percentile(QueryKind kind) {
+		return percentiles.get(kind);
+	}
+}
@@ -0,0 +1,110 @@
+package crypto.boomerang;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import boomerang.BackwardQuery;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.results.BackwardBoomerangResults;
+import sync.pds.solver.nodes.Node;
+import wpds.impl.Weight.NoWeight;
+
+/**
+ * Results of backward queries shared by all seeds of a scan. Seeds in the same method often ask for
+ * the values of the same variable at the same statement, e.g. an algorithm string passed to
+ * several getInstance calls, which is then solved once.
+ *
+ * The cache is safe to use from several threads. A query that is requested while it is solved by
+ * another thread waits for that result. Results of queries that timed out are not kept, since a
+ * later query may get more time. For the same reason, a waiting query that receives a timed out
+ * result solves the query itself, with its own timeout. The least recently used results are evicted once the cache holds
+ * the maximum number of results, because each result keeps its solver alive.
+ */
+public class BackwardQueryCache {
+
+	public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+	private final Cache<Node<Statement, Val>, BackwardBoomerangResults<NoWeight>> results;
+
+	/**
+	 * @param maximumSize the maximum number of results kept, 0 disables caching
+	 */
+	public BackwardQueryCache(int maximumSize) {
+		this.results = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+	}
+
+	/**
+	 * Returns the cached result of the query or solves it.
+	 *
+	 * @param query the query, its statement and variable identify the result
+	 * @param solver solves the query if no result is cached
+	 */
+	public BackwardBoomerangResults<NoWeight> getOrSolve(BackwardQuery query, Callable<BackwardBoomerangResults<NoWeight>> solver) {
+		Node<Statement, Val> key = query.asNode();
+		AtomicBoolean solvedHere = new AtomicBoolean();
+		BackwardBoomerangResults<NoWeight> res;
+		try {
+			res = results.get(key, () -> {
+				solvedHere.set(true);
+				return solver.call();
+			});
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			throw unwrap(e);
+		}
+		if (!res.isTimedout()) {
+			return res;
+		}
+		// Only remove this result, a waiting query may have cached its result already
+		results.asMap().remove(key, res);
+		if (solvedHere.get()) {
+			return res;
+		}
+		// The query was solved by another thread under the timeout of its seed, which may be shorter
+		try {
+			res = solver.call();
+		} catch (Exception e) {
+			throw unwrap(e);
+		}
+		if (!res.isTimedout()) {
+			results.put(key, res);
+		}
+		return res;
+	}
+
+	private static RuntimeException unwrap(Exception e) {
+		Throwable cause = e instanceof ExecutionException || e instanceof UncheckedExecutionException ? e.getCause() : e;
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		return new RuntimeException(cause);
+	}
+
+	public long getHitCount() {
+		return results.stats().hitCount();
+	}
+
+	public long getMissCount() {
+		return results.stats().missCount();
+	}
+
+	public long getEvictionCount() {
+		return results.stats().evictionCount();
+	}
+
+	public long size() {
+		return results.size();
+	}
+
+	@Override
+	public String toString() {
+		CacheStats stats = results.stats();
+		return String.format("%s hits, %s misses (hit rate %.1f%%), %s evictions", stats.hitCount(), stats.missCount(), 100 * stats.hitRate(), stats.evictionCount());
+	}
+}
@@ -17,6 +17,17 @@ import soot.jimple.Stmt;
 import soot.jimple.StringConstant;
 
 public class CogniCryptBoomerangOptions extends DefaultBoomerangOptions {
+
+	private final int analysisTimeoutMS;
+
+	public CogniCryptBoomerangOptions() {
+		this(FixedTimeoutPolicy.DEFAULT_TIMEOUT_MS);
+	}
+
+	public CogniCryptBoomerangOptions(int analysisTimeoutMS) {
+		this.analysisTimeoutMS = analysisTimeoutMS;
+	}
+
 	@Override
 	public Optional<AllocVal> getAllocationVal(SootMethod m, Stmt stmt, Val fact,
 			ObservableICFG<Unit, SootMethod> icfg) {
@@ -96,7 +107,7 @@ public class CogniCryptBoomerangOptions extends DefaultBoomerangOptions {
 
 	@Override
 	public int analysisTimeoutMS() {
-		return 5000;
+		return analysisTimeoutMS;
 	}
 	
 	@Override
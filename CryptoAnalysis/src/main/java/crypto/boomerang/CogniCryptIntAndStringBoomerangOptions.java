@@ -22,6 +22,17 @@ import soot.jimple.Stmt;
  * Created by johannesspath on 23.12.17.
  */
 public class CogniCryptIntAndStringBoomerangOptions extends IntAndStringBoomerangOptions {
+
+	private final int analysisTimeoutMS;
+
+	public CogniCryptIntAndStringBoomerangOptions() {
+		this(FixedTimeoutPolicy.DEFAULT_TIMEOUT_MS);
+	}
+
+	public CogniCryptIntAndStringBoomerangOptions(int analysisTimeoutMS) {
+		this.analysisTimeoutMS = analysisTimeoutMS;
+	}
+
 	@Override
 	public Optional<AllocVal> getAllocationVal(SootMethod m, Stmt stmt, Val fact,
 			ObservableICFG<Unit, SootMethod> icfg) {
@@ -111,7 +122,7 @@ public class CogniCryptIntAndStringBoomerangOptions extends IntAndStringBoomeran
 
 	@Override
 	public int analysisTimeoutMS() {
-		return 5000;
+		return analysisTimeoutMS;
 	}
 	
 	@Override
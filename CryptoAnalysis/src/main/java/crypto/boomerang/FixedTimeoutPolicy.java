@@ -0,0 +1,138 @@
+package crypto.boomerang;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+
+import crypto.exceptions.CryptoAnalysisException;
+import crypto.rules.CrySLRule;
+
+/**
+ * Assigns configured timeouts to the queries. The most specific setting applies: a timeout for the
+ * query kind of a rule, a timeout for the rule, a timeout for the query kind, and finally the
+ * default timeout of {@value #DEFAULT_TIMEOUT_MS} ms.
+ */
+public class FixedTimeoutPolicy implements TimeoutPolicy {
+
+	public static final int DEFAULT_TIMEOUT_MS = 5000;
+
+	private final int defaultTimeout;
+	private final Map<QueryKind, Integer> kindTimeouts = new EnumMap<>(QueryKind.class);
+	private final Map<String, Integer> ruleTimeouts = Maps.newHashMap();
+	private final Table<String, QueryKind, Integer> ruleKindTimeouts = HashBasedTable.create();
+
+	public FixedTimeoutPolicy() {
+		this(DEFAULT_TIMEOUT_MS);
+	}
+
+	public FixedTimeoutPolicy(int defaultTimeout) {
+		this.defaultTimeout = defaultTimeout;
+	}
+
+	public void setTimeout(QueryKind kind, int timeoutInMillis) {
+		kindTimeouts.put(kind, timeoutInMillis);
+	}
+
+	/**
+	 * @param ruleClassName the class name of the rule, e.g. javax.crypto.Cipher
+	 * @param timeoutInMillis the timeout for all queries of seeds of the rule
+	 */
+	public void setTimeout(String ruleClassName, int timeoutInMillis) {
+		ruleTimeouts.put(ruleClassName, timeoutInMillis);
+	}
+
+	public void setTimeout(String ruleClassName, QueryKind kind, int timeoutInMillis) {
+		ruleKindTimeouts.put(ruleClassName, kind, timeoutInMillis);
+	}
+
+	/**
+	 * Reads timeouts from a properties file. A key is either a query kind (typestate or extraction),
+	 * the class name of a rule, or the class name of a rule followed by a query kind, e.g.
+	 * <code>javax.crypto.Cipher.typestate=10000</code>. Values are in milliseconds.
+	 *
+	 * @param file the properties file
+	 * @throws CryptoAnalysisException if the file cannot be read or contains an invalid timeout
+	 */
+	public void readTimeouts(File file) throws CryptoAnalysisException {
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			properties.load(in);
+		} catch (IOException e) {
+			throw new CryptoAnalysisException("Could not read the timeouts from " + file.getAbsolutePath(), e);
+		}
+		for (String key : properties.stringPropertyNames()) {
+			int timeout = parseTimeout(key, properties.getProperty(key));
+			QueryKind kind = null;
+			for (QueryKind k : QueryKind.values()) {
+				if (key.equals(k.getName())) {
+					setTimeout(k, timeout);
+					kind = k;
+				} else if (key.endsWith("." + k.getName())) {
+					setTimeout(key.substring(0, key.length() - k.getName().length() - 1), k, timeout);
+					kind = k;
+				}
+			}
+			if (kind == null) {
+				setTimeout(key, timeout);
+			}
+		}
+	}
+
+	private static int parseTimeout(String key, String value) throws CryptoAnalysisException {
+		try {
+			int timeout = Integer.parseInt(value.trim());
+			if (timeout > 0) {
+				return timeout;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new CryptoAnalysisException("The timeout for " + key + " must be a positive number of milliseconds, but was: " + value);
+	}
+
+	/**
+	 * @param rule the rule of the seed issuing the query, <code>null</code> for seeds without a rule
+	 * @param kind the kind of the query
+	 * @return the timeout configured for the rule, either for the query kind or for all queries of the
+	 *         rule, <code>null</code> if there is none
+	 */
+	public QueryTimeout getRuleTimeout(CrySLRule rule, QueryKind kind) {
+		if (rule == null) {
+			return null;
+		}
+		Integer timeout = ruleKindTimeouts.get(rule.getClassName(), kind);
+		if (timeout != null) {
+			return new QueryTimeout(rule, kind, timeout, "rule " + kind.getName() + " timeout");
+		}
+		timeout = ruleTimeouts.get(rule.getClassName());
+		if (timeout != null) {
+			return new QueryTimeout(rule, kind, timeout, "rule timeout");
+		}
+		return null;
+	}
+
+	@Override
+	public QueryTimeout getTimeout(CrySLRule rule, QueryKind kind) {
+		QueryTimeout ruleTimeout = getRuleTimeout(rule, kind);
+		if (ruleTimeout != null) {
+			return ruleTimeout;
+		}
+		Integer timeout = kindTimeouts.get(kind);
+		if (timeout != null) {
+			return new QueryTimeout(rule, kind, timeout, kind.getName() + " timeout");
+		}
+		return new QueryTimeout(rule, kind, defaultTimeout, "default timeout");
+	}
+
+	@Override
+	public void queryFinished(QueryTimeout timeout, long elapsedMillis, boolean timedOut) {
+	}
+}
@@ -0,0 +1,22 @@
+package crypto.boomerang;
+
+/**
+ * The kinds of Boomerang queries the analysis issues, each can be given its own timeout.
+ */
+public enum QueryKind {
+	/**
+	 * The forward typestate analysis of a seed.
+	 */
+	TYPESTATE,
+	/**
+	 * The backward queries that extract the values of parameters for the constraints of a rule.
+	 */
+	VALUE_EXTRACTION;
+
+	/**
+	 * @return the name used for this kind in configuration files and reports
+	 */
+	public String getName() {
+		return this == TYPESTATE ? "typestate" : "extraction";
+	}
+}
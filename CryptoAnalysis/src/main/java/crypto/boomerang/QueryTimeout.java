@@ -0,0 +1,50 @@
+package crypto.boomerang;
+
+import crypto.rules.CrySLRule;
+
+/**
+ * The timeout a {@link TimeoutPolicy} assigned to a single query, together with a description of
+ * the setting it was derived from. It is passed on to the listeners when the query times out.
+ */
+public class QueryTimeout {
+
+	private final CrySLRule rule;
+	private final QueryKind kind;
+	private final int timeoutInMillis;
+	private final String policy;
+
+	public QueryTimeout(CrySLRule rule, QueryKind kind, int timeoutInMillis, String policy) {
+		this.rule = rule;
+		this.kind = kind;
+		this.timeoutInMillis = timeoutInMillis;
+		this.policy = policy;
+	}
+
+	/**
+	 * @return the rule of the seed that issued the query, <code>null</code> for seeds without a rule
+	 */
+	public CrySLRule getRule() {
+		return rule;
+	}
+
+	public QueryKind getKind() {
+		return kind;
+	}
+
+	public int getTimeoutInMillis() {
+		return timeoutInMillis;
+	}
+
+	/**
+	 * @return a description of the setting the timeout was derived from, e.g. "rule timeout"
+	 */
+	public String getPolicy() {
+		return policy;
+	}
+
+	@Override
+	public String toString() {
+		String ruleName = rule == null ? "" : " of " + rule.getClassName();
+		return kind.getName() + " timeout" + ruleName + " after " + timeoutInMillis + " ms (" + policy + ")";
+	}
+}
@@ -0,0 +1,27 @@
+package crypto.boomerang;
+
+import crypto.rules.CrySLRule;
+
+/**
+ * Decides how long a single Boomerang query may run. Queries of several seeds are issued
+ * concurrently when the analysis runs with multiple threads, hence implementations must be
+ * thread-safe.
+ */
+public interface TimeoutPolicy {
+
+	/**
+	 * @param rule the rule of the seed issuing the query, <code>null</code> for seeds without a rule
+	 * @param kind the kind of the query
+	 * @return the timeout for the query
+	 */
+	QueryTimeout getTimeout(CrySLRule rule, QueryKind kind);
+
+	/**
+	 * Called after a query finished or timed out.
+	 * 
+	 * @param timeout the timeout the query ran with
+	 * @param elapsedMillis the time the query took
+	 * @param timedOut whether the query hit its timeout
+	 */
+	void queryFinished(QueryTimeout timeout, long elapsedMillis, boolean timedOut);
+}
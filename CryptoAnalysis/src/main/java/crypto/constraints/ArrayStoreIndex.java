@@ -0,0 +1,71 @@
+package crypto.constraints;
+
+import java.util.Collections;
+import java.util.Set;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+
+import soot.Body;
+import soot.Local;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.ArrayRef;
+import soot.jimple.AssignStmt;
+import soot.jimple.NewArrayExpr;
+import soot.jimple.NewMultiArrayExpr;
+
+/**
+ * Indexes the values assigned to the array locals of a method, i.e. the values stored into the
+ * array and the values assigned to the local itself except for the array allocation. The index of
+ * a method is built once, when the values of one of its arrays are requested first, and shared by
+ * all seeds.
+ */
+public class ArrayStoreIndex {
+
+	private static final int MAXIMUM_METHODS = 1000;
+
+	private final LoadingCache<SootMethod, SetMultimap<Local, Value>> stores = CacheBuilder.newBuilder().maximumSize(MAXIMUM_METHODS).build(new CacheLoader<SootMethod, SetMultimap<Local, Value>>() {
+		@Override
+		public SetMultimap<Local, Value> load(SootMethod method) {
+			return index(method.getActiveBody());
+		}
+	});
+
+	/**
+	 * @param method the method declaring the array
+	 * @param array the array, only locals have assigned values
+	 * @return the values assigned to the array in the method
+	 */
+	public Set<Value> getAssignedValues(SootMethod method, Value array) {
+		if (!(array instanceof Local) || !method.hasActiveBody()) {
+			return Collections.emptySet();
+		}
+		return stores.getUnchecked(method).get((Local) array);
+	}
+
+	private static SetMultimap<Local, Value> index(Body body) {
+		ImmutableSetMultimap.Builder<Local, Value> index = ImmutableSetMultimap.builder();
+		for (Unit unit : body.getUnits()) {
+			if (!(unit instanceof AssignStmt)) {
+				continue;
+			}
+			AssignStmt assign = (AssignStmt) unit;
+			Value leftOp = assign.getLeftOp();
+			Value rightOp = assign.getRightOp();
+			if (rightOp instanceof NewArrayExpr || rightOp instanceof NewMultiArrayExpr) {
+				continue;
+			}
+			if (leftOp instanceof ArrayRef && ((ArrayRef) leftOp).getBase() instanceof Local) {
+				index.put((Local) ((ArrayRef) leftOp).getBase(), rightOp);
+			} else if (leftOp instanceof Local) {
+				index.put((Local) leftOp, rightOp);
+			}
+		}
+		return index.build();
+	}
+}
@@ -0,0 +1,170 @@
+package crypto.constraints;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import crypto.interfaces.ICrySLPredicateParameter;
+import crypto.interfaces.ISLConstraint;
+import crypto.rules.CrySLArithmeticConstraint;
+import crypto.rules.CrySLComparisonConstraint;
+import crypto.rules.CrySLConstraint;
+import crypto.rules.CrySLMethod;
+import crypto.rules.CrySLPredicate;
+import crypto.rules.CrySLRule;
+import crypto.rules.CrySLValueConstraint;
+import crypto.typestate.CrySLMethodToSootMethod;
+import soot.SootMethod;
+
+/**
+ * The parts of the constraints of a rule that do not depend on the analyzed seed. They are computed
+ * once per rule and shared by the {@link ConstraintSolver}s of all its seeds:
+ * <ul>
+ * <li>the variables each constraint of the rule involves,</li>
+ * <li>the value ranges of value constraints, lower cased for case-insensitive lookups,</li>
+ * <li>the operands of comparisons that are literals, parsed to their integer values,</li>
+ * <li>the Soot methods of the CrySL methods predicates refer to.</li>
+ * </ul>
+ * Constraints that are not part of the rule are evaluated without the plan. The plan is immutable
+ * and may be used by several threads.
+ */
+public class ConstraintPlan {
+
+	private final List<PlannedConstraint> constraints;
+	private final Map<CrySLValueConstraint, Set<String>> valueRanges = new IdentityHashMap<>();
+	private final Map<String, Integer> operands = Maps.newHashMap();
+	private final Map<CrySLMethod, Collection<SootMethod>> methods = new IdentityHashMap<>();
+
+	public ConstraintPlan(CrySLRule rule) {
+		ImmutableList.Builder<PlannedConstraint> planned = ImmutableList.builder();
+		for (ISLConstraint cons : rule.getConstraints()) {
+			planned.add(new PlannedConstraint(cons));
+			compile(cons);
+		}
+		this.constraints = planned.build();
+		for (CrySLPredicate pred : rule.getPredicates()) {
+			compile(pred);
+		}
+	}
+
+	private void compile(ISLConstraint cons) {
+		if (cons instanceof CrySLConstraint) {
+			compile(((CrySLConstraint) cons).getLeft());
+			compile(((CrySLConstraint) cons).getRight());
+		} else if (cons instanceof CrySLValueConstraint) {
+			CrySLValueConstraint valueConstraint = (CrySLValueConstraint) cons;
+			valueRanges.put(valueConstraint, normalize(valueConstraint.getValueRange()));
+		} else if (cons instanceof CrySLComparisonConstraint) {
+			CrySLComparisonConstraint comparison = (CrySLComparisonConstraint) cons;
+			compile(comparison.getLeft());
+			compile(comparison.getRight());
+		} else if (cons instanceof CrySLPredicate) {
+			CrySLPredicate pred = (CrySLPredicate) cons;
+			for (ICrySLPredicateParameter parameter : pred.getParameters()) {
+				if (parameter instanceof CrySLMethod) {
+					methods.put((CrySLMethod) parameter, CrySLMethodToSootMethod.v().convert((CrySLMethod) parameter));
+				}
+			}
+			if (pred.getConstraint() != null) {
+				compile(pred.getConstraint());
+			}
+		}
+	}
+
+	private void compile(CrySLArithmeticConstraint arith) {
+		for (ICrySLPredicateParameter operand : new ICrySLPredicateParameter[] { arith.getLeft(), arith.getRight() }) {
+			if (operand instanceof CrySLPredicate) {
+				compile((CrySLPredicate) operand);
+				continue;
+			}
+			operands.put(operand.getName(), parseLiteral(operand.getName()));
+		}
+	}
+
+	/**
+	 * @return the constraints of the rule in the order of the rule
+	 */
+	public List<PlannedConstraint> getConstraints() {
+		return constraints;
+	}
+
+	/**
+	 * @return the lower cased value range of the constraint
+	 */
+	public Set<String> getValueRange(CrySLValueConstraint valueConstraint) {
+		Set<String> range = valueRanges.get(valueConstraint);
+		return range != null ? range : normalize(valueConstraint.getValueRange());
+	}
+
+	/**
+	 * @param operand the name of an operand of an arithmetic or comparison constraint
+	 * @return the value of the operand if it is an integer or boolean literal, <code>null</code> if it is a variable
+	 */
+	public Integer getLiteral(String operand) {
+		if (operands.containsKey(operand)) {
+			return operands.get(operand);
+		}
+		return parseLiteral(operand);
+	}
+
+	public Collection<SootMethod> getSootMethods(CrySLMethod method) {
+		Collection<SootMethod> sootMethods = methods.get(method);
+		return sootMethods != null ? sootMethods : CrySLMethodToSootMethod.v().convert(method);
+	}
+
+	private static Set<String> normalize(List<String> valueRange) {
+		ImmutableSet.Builder<String> normalized = ImmutableSet.builder();
+		for (String value : valueRange) {
+			normalized.add(value.toLowerCase());
+		}
+		return normalized.build();
+	}
+
+	private static Integer parseLiteral(String operand) {
+		if (operand.equalsIgnoreCase("true")) {
+			return 1;
+		}
+		if (operand.equalsIgnoreCase("false")) {
+			return 0;
+		}
+		try {
+			return Integer.parseInt(operand);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A constraint of the rule together with the variables it involves.
+	 */
+	public static class PlannedConstraint {
+
+		private final ISLConstraint constraint;
+		private final Set<String> involvedVarNames;
+		private final boolean involvesSpeccedKey;
+
+		private PlannedConstraint(ISLConstraint constraint) {
+			this.constraint = constraint;
+			this.involvedVarNames = ImmutableSet.copyOf(constraint.getInvolvedVarNames());
+			this.involvesSpeccedKey = constraint.toString().contains("speccedKey");
+		}
+
+		public ISLConstraint getConstraint() {
+			return constraint;
+		}
+
+		public Set<String> getInvolvedVarNames() {
+			return involvedVarNames;
+		}
+
+		public boolean involvesSpeccedKey() {
+			return involvesSpeccedKey;
+		}
+	}
+}
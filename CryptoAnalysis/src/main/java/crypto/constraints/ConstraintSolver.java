@@ -5,16 +5,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -33,6 +33,7 @@ import crypto.analysis.errors.HardCodedError;
 import crypto.analysis.errors.ImpreciseValueExtractionError;
 import crypto.analysis.errors.InstanceOfError;
 import crypto.analysis.errors.NeverTypeOfError;
+import crypto.constraints.ConstraintPlan.PlannedConstraint;
 import crypto.extractparameter.CallSiteWithExtractedValue;
 import crypto.extractparameter.CallSiteWithParamIndex;
 import crypto.extractparameter.ExtractedValue;
@@ -47,12 +48,9 @@ import crypto.rules.CrySLObject;
 import crypto.rules.CrySLPredicate;
 import crypto.rules.CrySLSplitter;
 import crypto.rules.CrySLValueConstraint;
-import crypto.typestate.CrySLMethodToSootMethod;
-import soot.Body;
 import soot.IntType;
 import soot.SootMethod;
 import soot.Type;
-import soot.Unit;
 import soot.Value;
 import soot.jimple.AssignStmt;
 import soot.jimple.Constant;
@@ -77,8 +75,13 @@ public class ConstraintSolver {
 	private final CrySLResultsReporter reporter;
 	private final AnalysisSeedWithSpecification object;
 	private final ClassSpecification classSpec;
+	private final ConstraintPlan plan;
+	private final SubtypeOracle subtypeOracle;
+	private final ArrayStoreIndex arrayStoreIndex;
 	private Collection<CallSiteWithParamIndex> parameterAnalysisQuerySites;
 	private Multimap<CallSiteWithParamIndex, Type> propagatedTypes;
+	private ListMultimap<String, CallSiteWithParamIndex> callSitesByVarName;
+	private ListMultimap<String, CallSiteWithParamIndex> querySitesByVarName;
 
 	public ConstraintSolver(AnalysisSeedWithSpecification object, Collection<Statement> collectedCalls, CrySLResultsReporter crySLResultsReporter) {
 		this.object = object;
@@ -88,14 +91,23 @@ public class ConstraintSolver {
 		this.parameterAnalysisQuerySites = object.getParameterAnalysis().getAllQuerySites();
 		this.collectedCalls = collectedCalls;
 		this.allConstraints = this.classSpec.getRule().getConstraints();
-		for (ISLConstraint cons : allConstraints) {
-
-			Set<String> involvedVarNames = cons.getInvolvedVarNames();
-			for (CallSiteWithParamIndex cwpi : this.parameterAnalysisQuerySites) {
-				involvedVarNames.remove(cwpi.getVarName());
+		this.plan = this.classSpec.getConstraintPlan();
+		this.subtypeOracle = object.getSubtypeOracle();
+		this.arrayStoreIndex = object.getArrayStoreIndex();
+		Set<String> queriedVarNames = Sets.newHashSet();
+		for (CallSiteWithParamIndex cwpi : this.parameterAnalysisQuerySites) {
+			queriedVarNames.add(cwpi.getVarName());
+		}
+		for (PlannedConstraint planned : plan.getConstraints()) {
+			ISLConstraint cons = planned.getConstraint();
+			int unresolvedVarNames = 0;
+			for (String varName : planned.getInvolvedVarNames()) {
+				if (!queriedVarNames.contains(varName)) {
+					unresolvedVarNames++;
+				}
 			}
 
-			if (involvedVarNames.isEmpty() || (cons.toString().contains("speccedKey") && involvedVarNames.size() == 1)) {
+			if (unresolvedVarNames == 0 || (planned.involvesSpeccedKey() && unresolvedVarNames == 1)) {
 				if (cons instanceof CrySLPredicate) {
 					RequiredCrySLPredicate pred = retrieveValuesForPred(cons);
 					relConstraints.add(pred.getPred());
@@ -147,6 +159,32 @@ public class ConstraintSolver {
 		return null;
 	}
 
+	/**
+	 * @return the call sites at which values of the variable were extracted, in the order of the collected values
+	 */
+	private List<CallSiteWithParamIndex> getCallSites(String varName) {
+		if (callSitesByVarName == null) {
+			callSitesByVarName = ArrayListMultimap.create();
+			for (CallSiteWithParamIndex cs : parsAndVals.keySet()) {
+				callSitesByVarName.put(cs.getVarName(), cs);
+			}
+		}
+		return callSitesByVarName.get(varName);
+	}
+
+	/**
+	 * @return the query sites of the parameter analysis for the variable
+	 */
+	private List<CallSiteWithParamIndex> getQuerySites(String varName) {
+		if (querySitesByVarName == null) {
+			querySitesByVarName = ArrayListMultimap.create();
+			for (CallSiteWithParamIndex cs : parameterAnalysisQuerySites) {
+				querySitesByVarName.put(cs.getVarName(), cs);
+			}
+		}
+		return querySitesByVarName.get(varName);
+	}
+
 	private static String retrieveConstantFromValue(Value val) {
 		if (val instanceof StringConstant) {
 			return ((StringConstant) val).value;
@@ -278,11 +316,11 @@ public class ConstraintSolver {
 					for (ICrySLPredicateParameter predMethod : predMethods) {
 						// check whether predMethod is in foundMethods, which type-state analysis has to figure out
 						CrySLMethod reqMethod = (CrySLMethod) predMethod;
+						Collection<SootMethod> convert = plan.getSootMethods(reqMethod);
 						for (Statement unit : collectedCalls) {
 							if (!(unit.isCallsite()))
 								continue;
 							SootMethod foundCall = ((Stmt) unit.getUnit().get()).getInvokeExpr().getMethod();
-							Collection<SootMethod> convert = CrySLMethodToSootMethod.v().convert(reqMethod);
 							if (convert.contains(foundCall)) {
 								return;
 							}
@@ -298,12 +336,12 @@ public class ConstraintSolver {
 					for (ICrySLPredicateParameter predForbMethod : predForbiddenMethods) {
 						// check whether predForbMethod is in foundForbMethods, which forbidden-methods analysis has to figure out
 						CrySLMethod reqMethod = ((CrySLMethod) predForbMethod);
+						Collection<SootMethod> convert = plan.getSootMethods(reqMethod);
 
 						for (Statement call : collectedCalls) {
 							if (!call.isCallsite())
 								continue;
 							SootMethod foundCall = call.getUnit().get().getInvokeExpr().getMethod();
-							Collection<SootMethod> convert = CrySLMethodToSootMethod.v().convert(reqMethod);
 							if (convert.contains(foundCall)) {
 								errors.add(new ForbiddenMethodError(call, classSpec.getRule(), foundCall, convert));
 								return;
@@ -316,16 +354,14 @@ public class ConstraintSolver {
 					// -> first parameter is always the variable
 					// -> second parameter is always the type
 					String varName = ((CrySLObject) parameters.get(0)).getVarName();
-					for (CallSiteWithParamIndex cs : parameterAnalysisQuerySites) {
-						if (cs.getVarName().equals(varName)) {
-							Collection<Type> vals = propagatedTypes.get(cs);
-							for (Type t : vals) {
-								if (t.toQuotedString().equals(parameters.get(1).getName())) {
-									for (ExtractedValue v : parsAndVals.get(cs)) {
-										errors.add(new NeverTypeOfError(new CallSiteWithExtractedValue(cs, v), classSpec.getRule(), object, pred));
-									}
-									return;
+					for (CallSiteWithParamIndex cs : getQuerySites(varName)) {
+						Collection<Type> vals = propagatedTypes.get(cs);
+						for (Type t : vals) {
+							if (t.toQuotedString().equals(parameters.get(1).getName())) {
+								for (ExtractedValue v : parsAndVals.get(cs)) {
+									errors.add(new NeverTypeOfError(new CallSiteWithExtractedValue(cs, v), classSpec.getRule(), object, pred));
 								}
+								return;
 							}
 						}
 					}
@@ -338,26 +374,22 @@ public class ConstraintSolver {
 					CrySLObject varNotToBeHardCoded = (CrySLObject) pred.getParameters().get(0);
 					String name = varNotToBeHardCoded.getVarName();
 					String type = varNotToBeHardCoded.getJavaType();
-					for (CallSiteWithParamIndex cs : parsAndVals.keySet()) {
-						if (cs.getVarName().equals(name)) {
-							Collection<ExtractedValue> values = parsAndVals.get(cs);
-							for (ExtractedValue v : values) {
-								if (isSubType(type,  v.getValue().getType().toQuotedString()) && (isHardCoded(v) || isHardCodedArray(extractSootArray(cs, v)))) {
-									errors.add(new HardCodedError(new CallSiteWithExtractedValue(cs, v), classSpec.getRule(), object, pred));
-								}
+					for (CallSiteWithParamIndex cs : getCallSites(name)) {
+						Collection<ExtractedValue> values = parsAndVals.get(cs);
+						for (ExtractedValue v : values) {
+							if (isSubType(type,  v.getValue().getType().toQuotedString()) && (isHardCoded(v) || isHardCodedArray(extractSootArray(cs, v)))) {
+								errors.add(new HardCodedError(new CallSiteWithExtractedValue(cs, v), classSpec.getRule(), object, pred));
 							}
 						}
 					}
 					return;
 				case "instanceOf":
 					varName = ((CrySLObject) parameters.get(0)).getVarName();
-					for (CallSiteWithParamIndex cs : parameterAnalysisQuerySites) {
-						if (cs.getVarName().equals(varName)) {
-							Collection<Type> vals = propagatedTypes.get(cs);
-							if (!vals.parallelStream().anyMatch(e -> isSubType(e.toQuotedString(), parameters.get(1).getName()) || isSubType(parameters.get(1).getName(), e.toQuotedString()))) {
-								for (ExtractedValue v : parsAndVals.get(cs)) {
-									errors.add(new InstanceOfError(new CallSiteWithExtractedValue(cs, v), classSpec.getRule(), object, pred));
-								}
+					for (CallSiteWithParamIndex cs : getQuerySites(varName)) {
+						Collection<Type> vals = propagatedTypes.get(cs);
+						if (!vals.parallelStream().anyMatch(e -> isSubType(e.toQuotedString(), parameters.get(1).getName()) || isSubType(parameters.get(1).getName(), e.toQuotedString()))) {
+							for (ExtractedValue v : parsAndVals.get(cs)) {
+								errors.add(new InstanceOfError(new CallSiteWithExtractedValue(cs, v), classSpec.getRule(), object, pred));
 							}
 						}
 					}
@@ -488,43 +520,33 @@ public class ConstraintSolver {
 
 		private Map<Integer, CallSiteWithExtractedValue> extractValueAsInt(String exp, ISLConstraint cons) {
 			final HashMap<Integer, CallSiteWithExtractedValue> valuesInt = new HashMap<>();
-			// 0. exp may be true or false
-			if (exp.equalsIgnoreCase("true")) {
-				valuesInt.put(1, null);
+			// 1. exp may be a literal, i.e. true, false or an integer, resolved by the plan of the rule
+			Integer literal = plan.getLiteral(exp);
+			if (literal != null) {
+				valuesInt.put(literal, null);
 				return valuesInt;
 			}
-			if (exp.equalsIgnoreCase("false")) {
-				valuesInt.put(0, null);
+			// 2. If not, it's a variable name.
+			// Get value of variable left from map
+			final Map<String, CallSiteWithExtractedValue> valueCollection = extractValueAsString(exp, cons);
+			if (valueCollection.isEmpty()) {
 				return valuesInt;
 			}
 			try {
-				// 1. exp may (already) be an integer
-				valuesInt.put(Integer.parseInt(exp), null);
-				return valuesInt;
-			}
-			catch (NumberFormatException ex) {
-				// 2. If not, it's a variable name.
-				// Get value of variable left from map
-				final Map<String, CallSiteWithExtractedValue> valueCollection = extractValueAsString(exp, cons);
-				if (valueCollection.isEmpty()) {
-					return valuesInt;
+				for (Entry<String, CallSiteWithExtractedValue> value : valueCollection.entrySet()) {
+					if(value.getKey().equals("true"))
+						valuesInt.put(1, value.getValue());
+					else if(value.getKey().equals("false"))
+						valuesInt.put(0, value.getValue());
+					else
+						valuesInt.put(Integer.parseInt(value.getKey()), value.getValue());
 				}
-				try {
-					for (Entry<String, CallSiteWithExtractedValue> value : valueCollection.entrySet()) {
-						if(value.getKey().equals("true"))
-							valuesInt.put(1, value.getValue());
-						else if(value.getKey().equals("false"))
-							valuesInt.put(0, value.getValue());
-						else
-							valuesInt.put(Integer.parseInt(value.getKey()), value.getValue());
-					}
-				}
-				catch (NumberFormatException ex1) {
-					// If that does not work either, I'm out of ideas ...
-					LOGGER.error("An exception occured when extracting value as Integer.", ex1);
-				}
-				return valuesInt;
 			}
+			catch (NumberFormatException ex1) {
+				// If that does not work either, I'm out of ideas ...
+				LOGGER.error("An exception occured when extracting value as Integer.", ex1);
+			}
+			return valuesInt;
 		}
 
 	}
@@ -545,8 +567,8 @@ public class ConstraintSolver {
 				// TODO: Check whether this works as desired
 				return;
 			}
+			Set<String> values = plan.getValueRange(valCons);
 			for (Entry<String, CallSiteWithExtractedValue> val : vals) {
-				List<String> values = valCons.getValueRange().parallelStream().map(e -> e.toLowerCase()).collect(Collectors.toList());
 				if (!values.contains(val.getKey().toLowerCase())) {
 					errors.add(new ConstraintError(val.getValue(), classSpec.getRule(), object, valCons));
 				}
@@ -608,33 +630,31 @@ public class ConstraintSolver {
 
 		protected Map<String, CallSiteWithExtractedValue> extractValueAsString(String varName, ISLConstraint cons) {
 			Map<String, CallSiteWithExtractedValue> varVal = Maps.newHashMap();
-			for (CallSiteWithParamIndex wrappedCallSite : parsAndVals.keySet()) {
+			for (CallSiteWithParamIndex wrappedCallSite : getCallSites(varName)) {
 				final Stmt callSite = wrappedCallSite.stmt().getUnit().get();
 
 				for (ExtractedValue wrappedAllocSite : parsAndVals.get(wrappedCallSite)) {
 					final Stmt allocSite = wrappedAllocSite.stmt().getUnit().get();
-					if (wrappedCallSite.getVarName().equals(varName)) {
-						InvokeExpr invoker = callSite.getInvokeExpr();
-						if (callSite.equals(allocSite)) {
-							varVal.put(retrieveConstantFromValue(invoker.getArg(wrappedCallSite.getIndex())), new CallSiteWithExtractedValue(wrappedCallSite, wrappedAllocSite));
-						} else if (allocSite instanceof AssignStmt) {
-							if (wrappedAllocSite.getValue() instanceof Constant) {
+					InvokeExpr invoker = callSite.getInvokeExpr();
+					if (callSite.equals(allocSite)) {
+						varVal.put(retrieveConstantFromValue(invoker.getArg(wrappedCallSite.getIndex())), new CallSiteWithExtractedValue(wrappedCallSite, wrappedAllocSite));
+					} else if (allocSite instanceof AssignStmt) {
+						if (wrappedAllocSite.getValue() instanceof Constant) {
 //								varVal.put(retrieveConstantFromValue(wrappedAllocSite.getValue()), new CallSiteWithExtractedValue(wrappedCallSite, wrappedAllocSite));
-								String retrieveConstantFromValue = retrieveConstantFromValue(wrappedAllocSite.getValue());
-								int pos = -1;
-								for (int i = 0; i < invoker.getArgs().size(); i++) {
-									if (((AssignStmt) allocSite).getLeftOpBox().getValue().toString().equals(invoker.getArgs().get(i).toString())) {
-										pos = i;
-									}
+							String retrieveConstantFromValue = retrieveConstantFromValue(wrappedAllocSite.getValue());
+							int pos = -1;
+							for (int i = 0; i < invoker.getArgs().size(); i++) {
+								if (((AssignStmt) allocSite).getLeftOpBox().getValue().toString().equals(invoker.getArgs().get(i).toString())) {
+									pos = i;
 								}
-								if (pos > -1 && "boolean".equals(invoker.getMethodRef().getParameterType(pos).toQuotedString())) {
-									varVal.put("0".equals(retrieveConstantFromValue) ? "false" : "true", new CallSiteWithExtractedValue(wrappedCallSite, wrappedAllocSite));
-								} else {
-									varVal.put(retrieveConstantFromValue, new CallSiteWithExtractedValue(wrappedCallSite, wrappedAllocSite));
-								}
-							} else if (wrappedAllocSite.getValue() instanceof JNewArrayExpr) {								
-								varVal.putAll(extractSootArray(wrappedCallSite, wrappedAllocSite));
 							}
+							if (pos > -1 && "boolean".equals(invoker.getMethodRef().getParameterType(pos).toQuotedString())) {
+								varVal.put("0".equals(retrieveConstantFromValue) ? "false" : "true", new CallSiteWithExtractedValue(wrappedCallSite, wrappedAllocSite));
+							} else {
+								varVal.put(retrieveConstantFromValue, new CallSiteWithExtractedValue(wrappedCallSite, wrappedAllocSite));
+							}
+						} else if (wrappedAllocSite.getValue() instanceof JNewArrayExpr) {								
+							varVal.putAll(extractSootArray(wrappedCallSite, wrappedAllocSite));
 						}
 					}
 				}
@@ -643,30 +663,17 @@ public class ConstraintSolver {
 		}
 		
 		/***
-		 * Function that finds the values assigned to a soot array.
+		 * Function that finds the values assigned to a soot array, looked up in the array store index of its method.
 		 * @param callSite call site at which sootValue is involved
 		 * @param allocSite allocation site at which sootValue is involved
-		 * @param arrayLocal soot array local variable for which values are to be found
 		 * @return extracted array values
 		 */
 		protected Map<String, CallSiteWithExtractedValue> extractSootArray(CallSiteWithParamIndex callSite, ExtractedValue allocSite){
 			Value arrayLocal = allocSite.getValue();
-			Body methodBody = allocSite.stmt().getMethod().getActiveBody();
 			Map<String, CallSiteWithExtractedValue> arrVal = Maps.newHashMap();
-				if (methodBody != null) {
-					Iterator<Unit> unitIterator = methodBody.getUnits().snapshotIterator();
-					while (unitIterator.hasNext()) {
-						final Unit unit = unitIterator.next();
-						if (unit instanceof AssignStmt) {
-							AssignStmt uStmt = (AssignStmt) (unit);
-							Value leftValue = uStmt.getLeftOp();
-							Value rightValue = uStmt.getRightOp();
-							if (leftValue.toString().contains(arrayLocal.toString()) && !rightValue.toString().contains("newarray")) {
-								arrVal.put(retrieveConstantFromValue(rightValue), new CallSiteWithExtractedValue(callSite, allocSite));
-							}
-						}
-					}
-				}
+			for (Value rightValue : arrayStoreIndex.getAssignedValues(allocSite.stmt().getMethod(), arrayLocal)) {
+				arrVal.put(retrieveConstantFromValue(rightValue), new CallSiteWithExtractedValue(callSite, allocSite));
+			}
 			return arrVal;
 		}
 	}
@@ -679,10 +686,7 @@ public class ConstraintSolver {
 		boolean subTypes = typeOne.equals(typeTwo);
 		subTypes |= (typeOne + "[]").equals(typeTwo);
 		if (!subTypes) {
-			try {
-				subTypes = Class.forName(typeOne).isAssignableFrom(Class.forName(typeTwo));
-			}
-			catch (ClassNotFoundException e) {}
+			subTypes = subtypeOracle.isSubType(typeOne, typeTwo);
 		}
 		return subTypes;
 	}
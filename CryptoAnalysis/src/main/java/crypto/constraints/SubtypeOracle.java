@@ -0,0 +1,54 @@
+package crypto.constraints;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.Maps;
+
+import soot.FastHierarchy;
+import soot.RefType;
+import soot.Scene;
+
+/**
+ * Answers whether a type is a subtype of another one for the instanceOf and notHardCoded
+ * predicates. The types are looked up in the class hierarchy of Soot, hence classes that only exist
+ * in the analyzed program are resolved as well. Types that are not classes of the scene, e.g.
+ * primitive and array types, are only subtypes of themselves.
+ *
+ * The answers are memoized by the names of the types and shared by all seeds of a scan.
+ */
+public class SubtypeOracle {
+
+	private final Map<Entry<String, String>, Boolean> subtypes = new ConcurrentHashMap<>();
+	private FastHierarchy hierarchy;
+
+	/**
+	 * @param superType the name of the potential super type
+	 * @param subType the name of the potential subtype
+	 * @return <code>true</code> if a value of the subtype can be assigned to a variable of the super type
+	 */
+	public boolean isSubType(String superType, String subType) {
+		if (superType.equals(subType)) {
+			return true;
+		}
+		Entry<String, String> key = Maps.immutableEntry(superType, subType);
+		Boolean subtype = subtypes.get(key);
+		if (subtype == null) {
+			subtype = computeSubType(superType, subType);
+			subtypes.put(key, subtype);
+		}
+		return subtype;
+	}
+
+	private synchronized boolean computeSubType(String superType, String subType) {
+		Scene scene = Scene.v();
+		if (!scene.containsClass(superType) || !scene.containsClass(subType)) {
+			return false;
+		}
+		if (hierarchy == null) {
+			hierarchy = scene.getOrMakeFastHierarchy();
+		}
+		return hierarchy.canStoreType(RefType.v(subType), RefType.v(superType));
+	}
+}
@@ -5,11 +5,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import boomerang.BackwardQuery;
 import boomerang.Boomerang;
@@ -19,19 +27,23 @@ import boomerang.jimple.AllocVal;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.results.BackwardBoomerangResults;
+import crypto.analysis.AnalysisSeedWithSpecification;
 import crypto.analysis.CryptoScanner;
 import crypto.boomerang.CogniCryptIntAndStringBoomerangOptions;
+import crypto.boomerang.QueryKind;
+import crypto.boomerang.QueryTimeout;
+import crypto.boomerang.TimeoutPolicy;
 import crypto.rules.CrySLMethod;
 import crypto.typestate.CrySLMethodToSootMethod;
 import crypto.typestate.LabeledMatcherTransition;
 import crypto.typestate.SootBasedStateMachineGraph;
-import heros.utilities.DefaultValueMap;
 import soot.Local;
 import soot.Scene;
 import soot.SootMethod;
 import soot.Type;
 import soot.Unit;
 import soot.Value;
+import soot.jimple.AssignStmt;
 import soot.jimple.Stmt;
 import sync.pds.solver.nodes.Node;
 import typestate.finiteautomata.MatcherTransition;
@@ -42,18 +54,16 @@ public class ExtractParameterAnalysis {
 	private Map<Statement,SootMethod> allCallsOnObject;
 	private Collection<LabeledMatcherTransition> events = Sets.newHashSet();
 	private CryptoScanner cryptoScanner;
+	private AnalysisSeedWithSpecification seed;
 	private Multimap<CallSiteWithParamIndex, ExtractedValue> collectedValues = HashMultimap.create();
 	private Collection<CallSiteWithParamIndex> querySites = Sets.newHashSet();
 	private Multimap<CallSiteWithParamIndex, Type> propagatedTypes = HashMultimap.create();
-	private DefaultValueMap<AdditionalBoomerangQuery, AdditionalBoomerangQuery> additionalBoomerangQuery = new DefaultValueMap<AdditionalBoomerangQuery, AdditionalBoomerangQuery>() {
-		@Override
-		protected AdditionalBoomerangQuery createItem(AdditionalBoomerangQuery key) {
-			return key;
-		}
-	};
+	// Ordered by creation, such that the listeners of the queries are notified in a deterministic order
+	private Map<AdditionalBoomerangQuery, AdditionalBoomerangQuery> additionalBoomerangQuery = Maps.newLinkedHashMap();
 
-	public ExtractParameterAnalysis(CryptoScanner cryptoScanner, Map<Statement, SootMethod> allCallsOnObject, SootBasedStateMachineGraph fsm) {
+	public ExtractParameterAnalysis(CryptoScanner cryptoScanner, Map<Statement, SootMethod> allCallsOnObject, SootBasedStateMachineGraph fsm, AnalysisSeedWithSpecification seed) {
 		this.cryptoScanner = cryptoScanner;
+		this.seed = seed;
 		this.allCallsOnObject = allCallsOnObject;
 		for(MatcherTransition m : fsm.getAllTransitions()) {
 			if(m instanceof LabeledMatcherTransition) {
@@ -74,8 +84,51 @@ public class ExtractParameterAnalysis {
 				}
 			}
 		}
+		ExecutorService executor = cryptoScanner.getQueryExecutor();
+		if (executor == null || additionalBoomerangQuery.size() < 2) {
+			for (AdditionalBoomerangQuery q : additionalBoomerangQuery.keySet()) {
+				q.solve();
+			}
+			return;
+		}
+		// The queries are independent and solved concurrently, but the listeners collecting the
+		// values are notified on this thread in the order the queries were created.
+		AtomicBoolean abandoned = new AtomicBoolean();
+		List<Future<?>> solvedQueries = Lists.newArrayList();
 		for (AdditionalBoomerangQuery q : additionalBoomerangQuery.keySet()) {
-			q.solve();
+			solvedQueries.add(executor.submit(() -> {
+				if (!abandoned.get()) {
+					q.solveQuery();
+				}
+			}));
+		}
+		try {
+			int i = 0;
+			for (AdditionalBoomerangQuery q : additionalBoomerangQuery.keySet()) {
+				try {
+					solvedQueries.get(i++).get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					}
+					throw new RuntimeException("Failed to solve value extraction query " + q, e.getCause());
+				}
+				q.notifyListeners();
+			}
+		} finally {
+			// When returning early, the queries that have not started are skipped and the running
+			// ones are awaited, so none of them writes into the results afterwards
+			abandoned.set(true);
+			for (Future<?> solvedQuery : solvedQueries) {
+				try {
+					Uninterruptibles.getUninterruptibly(solvedQuery);
+				} catch (ExecutionException e) {
+					// reported for the first failing query above
+				}
+			}
 		}
 	}
 	public Multimap<CallSiteWithParamIndex, ExtractedValue> getCollectedValues() {
@@ -129,10 +182,22 @@ public class ExtractParameterAnalysis {
 			return;
 		}
 		Val queryVal = new Val((Local) parameter, stmt.getMethod());
-		
+		AssignStmt constantDefinition = cryptoScanner.resolveLocalConstants() ? cryptoScanner.getLocalConstantResolver().resolve((Local) parameter, stmt) : null;
+		if (constantDefinition != null) {
+			// The only allocation site a query would find, hence no need to solve it
+			CallSiteWithParamIndex cs = new CallSiteWithParamIndex(stmt, queryVal, index, varNameInSpecification);
+			Statement definition = new Statement(constantDefinition, stmt.getMethod());
+			Set<Node<Statement,Val>> dataFlowPath = Sets.newHashSet();
+			dataFlowPath.add(new Node<Statement, Val>(definition, queryVal));
+			dataFlowPath.add(new Node<Statement, Val>(stmt, queryVal));
+			collectedValues.put(cs, new ExtractedValue(definition, constantDefinition.getRightOp(), dataFlowPath));
+			propagatedTypes.put(cs, parameter.getType());
+			querySites.add(cs);
+			return;
+		}
+
 		for(Unit pred : cryptoScanner.icfg().getPredsOf(stmt.getUnit().get())) {
-			AdditionalBoomerangQuery query = additionalBoomerangQuery
-					.getOrCreate(new AdditionalBoomerangQuery(new Statement((Stmt)pred, stmt.getMethod()), queryVal));
+			AdditionalBoomerangQuery query = getOrCreateQuery(new AdditionalBoomerangQuery(new Statement((Stmt)pred, stmt.getMethod()), queryVal));
 			CallSiteWithParamIndex callSiteWithParamIndex = new CallSiteWithParamIndex(stmt, queryVal, index, varNameInSpecification);
 			querySites.add(callSiteWithParamIndex);
 			query.addListener(new QueryListener() {
@@ -163,10 +228,14 @@ public class ExtractParameterAnalysis {
 	}
 
 	public void addAdditionalBoomerangQuery(AdditionalBoomerangQuery q, QueryListener listener) {
-		AdditionalBoomerangQuery query = additionalBoomerangQuery.getOrCreate(q);
+		AdditionalBoomerangQuery query = getOrCreateQuery(q);
 		query.addListener(listener);
 	}
 
+	private AdditionalBoomerangQuery getOrCreateQuery(AdditionalBoomerangQuery q) {
+		return additionalBoomerangQuery.computeIfAbsent(q, key -> key);
+	}
+
 	public class AdditionalBoomerangQuery extends BackwardQuery {
 		public AdditionalBoomerangQuery(Statement stmt, Val variable) {
 			super(stmt, variable);
@@ -177,22 +246,50 @@ public class ExtractParameterAnalysis {
 		private BackwardBoomerangResults<NoWeight> res;
 
 		public void solve() {
-			Boomerang boomerang = new Boomerang(new CogniCryptIntAndStringBoomerangOptions()) {
-				@Override
-				public ObservableICFG<Unit, SootMethod> icfg() {
-					return ExtractParameterAnalysis.this.cryptoScanner.icfg();
+			solveQuery();
+			notifyListeners();
+		}
+
+		/**
+		 * Solves the query without notifying its listeners, hence it may run on any thread.
+		 */
+		private void solveQuery() {
+			TimeoutPolicy timeoutPolicy = cryptoScanner.getTimeoutPolicy();
+			QueryTimeout timeout = timeoutPolicy.getTimeout(seed.getSpec().getRule(), QueryKind.VALUE_EXTRACTION);
+			cryptoScanner.getAnalysisListener().boomerangQueryStarted(seed, this);
+			res = cryptoScanner.getBackwardQueryCache().getOrSolve(this, () -> {
+				Boomerang boomerang = new Boomerang(new CogniCryptIntAndStringBoomerangOptions(timeout.getTimeoutInMillis())) {
+					@Override
+					public ObservableICFG<Unit, SootMethod> icfg() {
+						return ExtractParameterAnalysis.this.cryptoScanner.icfg();
+					}
+				};
+				Stopwatch watch = Stopwatch.createStarted();
+				BackwardBoomerangResults<NoWeight> solvedResults = boomerang.solve(this);
+				timeoutPolicy.queryFinished(timeout, watch.elapsed(TimeUnit.MILLISECONDS), solvedResults.isTimedout());
+				return solvedResults;
+			});
+			if (res.isTimedout()) {
+				cryptoScanner.getAnalysisListener().onSeedTimeout(asNode(), timeout);
+			}
+			cryptoScanner.getAnalysisListener().boomerangQueryFinished(seed, this);
+		}
+
+		private void notifyListeners() {
+			// The results may be shared with queries of other seeds that read them concurrently
+			synchronized (res) {
+				for (QueryListener l : Lists.newLinkedList(listeners)) {
+					l.solved(this, res);
 				}
-			};
-			res = boomerang.solve(this);
-			for (QueryListener l : Lists.newLinkedList(listeners)) {
-				l.solved(this, res);
 			}
 			solved = true;
 		}
 
 		public void addListener(QueryListener q) {
 			if (solved) {
-				q.solved(this, res);
+				synchronized (res) {
+					q.solved(this, res);
+				}
 				return;
 			}
 			listeners.add(q);
@@ -0,0 +1,61 @@
+package crypto.extractparameter;
+
+import java.util.List;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import boomerang.jimple.Statement;
+import soot.Local;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.AssignStmt;
+import soot.jimple.IntConstant;
+import soot.jimple.StringConstant;
+import soot.toolkits.scalar.LocalDefs;
+
+/**
+ * Resolves parameters that are string or int constants assigned in the same method without a
+ * Boomerang query, e.g. the local introduced for "AES/GCM/NoPadding" in
+ * <code>Cipher.getInstance("AES/GCM/NoPadding")</code>. A local is only resolved if a single
+ * definition reaches the statement and this definition assigns a constant. Boomerang finds exactly
+ * this definition as the only allocation site of the local, in all other cases the resolver is
+ * unsure and the query has to be solved.
+ *
+ * The local definitions are computed once per method and shared by all seeds.
+ */
+public class LocalConstantResolver {
+
+	private static final int MAXIMUM_METHODS = 1000;
+
+	private final LoadingCache<SootMethod, LocalDefs> localDefs = CacheBuilder.newBuilder().maximumSize(MAXIMUM_METHODS).build(new CacheLoader<SootMethod, LocalDefs>() {
+		@Override
+		public LocalDefs load(SootMethod method) {
+			return LocalDefs.Factory.newLocalDefs(method.getActiveBody());
+		}
+	});
+
+	/**
+	 * @param local the local used at the statement
+	 * @param stmt the statement using the local
+	 * @return the assignment of a constant to the local if it is the only definition reaching the statement, <code>null</code> otherwise
+	 */
+	public AssignStmt resolve(Local local, Statement stmt) {
+		SootMethod method = stmt.getMethod();
+		if (!method.hasActiveBody()) {
+			return null;
+		}
+		List<Unit> definitions = localDefs.getUnchecked(method).getDefsOfAt(local, stmt.getUnit().get());
+		if (definitions.size() != 1 || !(definitions.get(0) instanceof AssignStmt)) {
+			return null;
+		}
+		AssignStmt definition = (AssignStmt) definitions.get(0);
+		Value rightOp = definition.getRightOp();
+		if (rightOp instanceof StringConstant || rightOp instanceof IntConstant) {
+			return definition;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,42 @@
+package crypto.predicates;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Assigns dense int ids to objects, such that equal objects share one id and one canonical
+ * instance. Not thread-safe, the {@link PredicateHandler} uses it while holding the analysis lock.
+ */
+public class Interner<T> {
+
+	private final Map<T, Integer> ids = Maps.newHashMap();
+	private final List<T> objects = Lists.newArrayList();
+
+	/**
+	 * @return the id of the object, a new id if the object is seen for the first time
+	 */
+	public int intern(T object) {
+		Integer id = ids.get(object);
+		if (id == null) {
+			id = objects.size();
+			ids.put(object, id);
+			objects.add(object);
+		}
+		return id;
+	}
+
+	/**
+	 * @return the id of the object, -1 if it has none
+	 */
+	public int find(T object) {
+		Integer id = ids.get(object);
+		return id == null ? -1 : id;
+	}
+
+	public T get(int id) {
+		return objects.get(id);
+	}
+}
@@ -1,17 +1,27 @@
 package crypto.predicates;
 
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 import com.google.common.collect.Table.Cell;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
-import boomerang.results.ForwardBoomerangResults;
 import crypto.analysis.AlternativeReqPredicate;
 import crypto.analysis.AnalysisSeedWithSpecification;
 import crypto.analysis.ClassSpecification;
@@ -19,7 +29,7 @@ import crypto.analysis.CryptoScanner;
 import crypto.analysis.EnsuredCrySLPredicate;
 import crypto.analysis.IAnalysisSeed;
 import crypto.analysis.RequiredCrySLPredicate;
-import crypto.analysis.ResultsHandler;
+import crypto.analysis.SeedResultSummary;
 import crypto.analysis.errors.PredicateContradictionError;
 import crypto.analysis.errors.RequiredPredicateError;
 import crypto.extractparameter.CallSiteWithExtractedValue;
@@ -36,125 +46,167 @@ import soot.jimple.InstanceInvokeExpr;
 import soot.jimple.InvokeExpr;
 import soot.jimple.StaticInvokeExpr;
 import soot.jimple.Stmt;
-import typestate.TransitionFunction;
+import typestate.finiteautomata.State;
 
 public class PredicateHandler {
 
-	private final class AddPredicateToOtherSeed implements ResultsHandler {
-		private final Statement statement;
-		private final Value base;
-		private final SootMethod callerMethod;
-		private final EnsuredCrySLPredicate ensPred;
-		private final AnalysisSeedWithSpecification secondSeed;
+	private final Interner<Statement> statements = new Interner<>();
+	private final Interner<IAnalysisSeed> seeds = new Interner<>();
+	private final Interner<EnsuredCrySLPredicate> ensuredPredicates = new Interner<>();
+	private final PredicateTable<Val, EnsuredCrySLPredicate> existingPredicates = new PredicateTable<>(statements, new Interner<>(), ensuredPredicates);
+	private final PredicateTable<IAnalysisSeed, EnsuredCrySLPredicate> existingPredicatesObjectBased = new PredicateTable<>(statements, seeds, ensuredPredicates);
+	private final PredicateTable<IAnalysisSeed, CrySLPredicate> expectedPredicateObjectBased = new PredicateTable<>(statements, seeds, new Interner<>());
+	private final Set<Statement> expectingStatements = Sets.newHashSet();
+	private final Interner<String> predicateNames = new Interner<>();
+	private final ListMultimap<Integer, ContradictionPair> contradictionPairsByName = ArrayListMultimap.create();
+	/**
+	 * Contradiction pairs whose predicates are both ensured on a value at a statement, detected when the second
+	 * predicate is added. They are reported if the statement expects a predicate.
+	 */
+	private final SetMultimap<Entry<Statement, Val>, ContradictionPair> contradictions = LinkedHashMultimap.create();
+	/**
+	 * Seeds by the statement/value pairs their objects reach, known once the typestate analysis of a seed finished.
+	 */
+	private final Table<Statement, Val, Set<AnalysisSeedWithSpecification>> seedsReaching = HashBasedTable.create();
+	/**
+	 * Predicates ensured on the base of a call, to be added to seeds reaching the base whose analysis has not finished
+	 * yet. Each predicate is mapped to the number of seeds that existed when it was ensured, only these seeds receive it.
+	 */
+	private final Table<Statement, Val, Map<EnsuredCrySLPredicate, Integer>> pendingPredicates = HashBasedTable.create();
+	private final Map<AnalysisSeedWithSpecification, Integer> seedNumbers = Maps.newHashMap();
+	private final SetMultimap<Statement, AnalysisSeedWithSpecification> seedsByStatement = HashMultimap.create();
+	/**
+	 * Predicates added at a statement/value pair that still have to be propagated to other seeds.
+	 */
+	private final Deque<PredicateFact> worklist = new ArrayDeque<>();
+	/**
+	 * Seeds with new ensured predicates that still have to ensure their own predicates.
+	 */
+	private final Set<AnalysisSeedWithSpecification> seedsToUpdate = Sets.newLinkedHashSet();
+	private boolean propagating;
+	private final CryptoScanner cryptoScanner;
 
-		private AddPredicateToOtherSeed(Statement statement, Value base, SootMethod callerMethod, EnsuredCrySLPredicate ensPred, AnalysisSeedWithSpecification secondSeed) {
-			this.statement = statement;
-			this.base = base;
-			this.callerMethod = callerMethod;
-			this.ensPred = ensPred;
-			this.secondSeed = secondSeed;
-		}
+	public PredicateHandler(CryptoScanner cryptoScanner) {
+		this.cryptoScanner = cryptoScanner;
+	}
 
-		@Override
-		public void done(ForwardBoomerangResults<TransitionFunction> results) {
-			if (results.asStatementValWeightTable().row(statement).containsKey(new Val(base, callerMethod))) {
-				secondSeed.addEnsuredPredicate(ensPred);
+	public boolean addNewPred(IAnalysisSeed seedObj, Statement statement, Val variable, EnsuredCrySLPredicate ensPred) {
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			boolean added = existingPredicates.add(statement, variable, ensPred);
+			assert existingPredicates.get(statement, variable).contains(ensPred);
+			if (added) {
+				detectContradictions(statement, variable, ensPred);
+				worklist.add(new PredicateFact(seedObj, statement, variable, ensPred));
 			}
+			cryptoScanner.getAnalysisListener().onSecureObjectFound(seedObj);
+			existingPredicatesObjectBased.add(statement, seedObj, ensPred);
+			propagate();
+			return added;
 		}
+	}
 
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + getOuterType().hashCode();
-			result = prime * result + ((base == null) ? 0 : base.hashCode());
-			result = prime * result + ((callerMethod == null) ? 0 : callerMethod.hashCode());
-			result = prime * result + ((ensPred == null) ? 0 : ensPred.hashCode());
-			result = prime * result + ((secondSeed == null) ? 0 : secondSeed.hashCode());
-			result = prime * result + ((statement == null) ? 0 : statement.hashCode());
-			return result;
+	/**
+	 * Schedules a seed whose ensured predicates changed to ensure its own predicates again.
+	 */
+	public void scheduleUpdate(AnalysisSeedWithSpecification seed) {
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			seedsToUpdate.add(seed);
+			propagate();
 		}
+	}
 
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			AddPredicateToOtherSeed other = (AddPredicateToOtherSeed) obj;
-			if (!getOuterType().equals(other.getOuterType()))
-				return false;
-			if (base == null) {
-				if (other.base != null)
-					return false;
-			} else if (!base.equals(other.base))
-				return false;
-			if (callerMethod == null) {
-				if (other.callerMethod != null)
-					return false;
-			} else if (!callerMethod.equals(other.callerMethod))
-				return false;
-			if (ensPred == null) {
-				if (other.ensPred != null)
-					return false;
-			} else if (!ensPred.equals(other.ensPred))
-				return false;
-			if (secondSeed == null) {
-				if (other.secondSeed != null)
-					return false;
-			} else if (!secondSeed.equals(other.secondSeed))
-				return false;
-			if (statement == null) {
-				if (other.statement != null)
-					return false;
-			} else if (!statement.equals(other.statement))
-				return false;
-			return true;
+	/**
+	 * Propagates predicates until no new predicate is added. Propagating a predicate may ensure further predicates,
+	 * these are not propagated recursively but added to the worklist, which the outermost call processes. Predicates
+	 * are only added to the worklist if they are new at their statement/value pair and seeds are only updated if they
+	 * received a new predicate. Both sets are finite, hence the propagation terminates. The changes of the ensured
+	 * predicates of a seed are combined while the seed waits for its update.
+	 */
+	private void propagate() {
+		if (propagating) {
+			return;
 		}
-
-		private PredicateHandler getOuterType() {
-			return PredicateHandler.this;
+		propagating = true;
+		try {
+			while (true) {
+				PredicateFact fact = worklist.poll();
+				if (fact != null) {
+					onPredicateAdded(fact.seed, fact.statement, fact.variable, fact.predicate);
+					continue;
+				}
+				Iterator<AnalysisSeedWithSpecification> seeds = seedsToUpdate.iterator();
+				if (!seeds.hasNext()) {
+					return;
+				}
+				AnalysisSeedWithSpecification seed = seeds.next();
+				seeds.remove();
+				seed.ensurePredicates();
+			}
+		} finally {
+			propagating = false;
 		}
-
 	}
 
-	private final Table<Statement, Val, Set<EnsuredCrySLPredicate>> existingPredicates = HashBasedTable.create();
-	private final Table<Statement, IAnalysisSeed, Set<EnsuredCrySLPredicate>> existingPredicatesObjectBased = HashBasedTable.create();
-	private final Table<Statement, IAnalysisSeed, Set<CrySLPredicate>> expectedPredicateObjectBased = HashBasedTable.create();
-	private final CryptoScanner cryptoScanner;
-
-	public PredicateHandler(CryptoScanner cryptoScanner) {
-		this.cryptoScanner = cryptoScanner;
+	/**
+	 * @return a read-only view of the predicates ensured on the value at the statement
+	 */
+	public Set<EnsuredCrySLPredicate> getExistingPredicates(Statement stmt, Val seed) {
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			return existingPredicates.get(stmt, seed);
+		}
 	}
 
-	public boolean addNewPred(IAnalysisSeed seedObj, Statement statement, Val variable, EnsuredCrySLPredicate ensPred) {
-		Set<EnsuredCrySLPredicate> set = getExistingPredicates(statement, variable);
-		boolean added = set.add(ensPred);
-		assert existingPredicates.get(statement, variable).contains(ensPred);
-		if (added) {
-			onPredicateAdded(seedObj, statement, variable, ensPred);
+	/**
+	 * Indexes a new seed by its statement, called when the seed is created.
+	 */
+	public void onSeedCreated(AnalysisSeedWithSpecification seed) {
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			seedNumbers.put(seed, seedNumbers.size());
+			seedsByStatement.put(seed.stmt(), seed);
 		}
-		cryptoScanner.getAnalysisListener().onSecureObjectFound(seedObj);
-		Set<EnsuredCrySLPredicate> predsObjBased = existingPredicatesObjectBased.get(statement, seedObj);
-		if (predsObjBased == null)
-			predsObjBased = Sets.newHashSet();
-		predsObjBased.add(ensPred);
-		existingPredicatesObjectBased.put(statement, seedObj, predsObjBased);
-		return added;
 	}
 
 	/**
-	 * @return the existingPredicates
+	 * Indexes a seed by the statement/value pairs its object reaches and adds the predicates ensured on these values
+	 * before, called when the typestate analysis of the seed finished.
 	 */
-	public Set<EnsuredCrySLPredicate> getExistingPredicates(Statement stmt, Val seed) {
-		Set<EnsuredCrySLPredicate> set = existingPredicates.get(stmt, seed);
-		if (set == null) {
-			set = Sets.newHashSet();
-			existingPredicates.put(stmt, seed, set);
+	public void onSeedResults(AnalysisSeedWithSpecification seed, SeedResultSummary results) {
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			Integer seedNumber = seedNumbers.get(seed);
+			for (Cell<Statement, Val, Set<State>> c : results.getReachedStates().cellSet()) {
+				Set<AnalysisSeedWithSpecification> seeds = seedsReaching.get(c.getRowKey(), c.getColumnKey());
+				if (seeds == null) {
+					seeds = Sets.newHashSet();
+					seedsReaching.put(c.getRowKey(), c.getColumnKey(), seeds);
+				}
+				seeds.add(seed);
+				Map<EnsuredCrySLPredicate, Integer> pending = pendingPredicates.get(c.getRowKey(), c.getColumnKey());
+				if (pending == null || seedNumber == null) {
+					continue;
+				}
+				for (Entry<EnsuredCrySLPredicate, Integer> ensPred : Lists.newArrayList(pending.entrySet())) {
+					if (seedNumber < ensPred.getValue()) {
+						seed.addEnsuredPredicate(ensPred.getKey());
+					}
+				}
+			}
+		}
+	}
+
+	private void addPredicateToSeedsReaching(Statement statement, Val base, EnsuredCrySLPredicate ensPred) {
+		Map<EnsuredCrySLPredicate, Integer> pending = pendingPredicates.get(statement, base);
+		if (pending == null) {
+			pending = Maps.newHashMap();
+			pendingPredicates.put(statement, base, pending);
+		}
+		pending.put(ensPred, seedNumbers.size());
+		Set<AnalysisSeedWithSpecification> seeds = seedsReaching.get(statement, base);
+		if (seeds == null) {
+			return;
+		}
+		for (AnalysisSeedWithSpecification secondSeed : Lists.newArrayList(seeds)) {
+			secondSeed.addEnsuredPredicate(ensPred);
 		}
-		return set;
 	}
 
 	private void onPredicateAdded(IAnalysisSeed seedObj, Statement statement, Val seed, EnsuredCrySLPredicate ensPred) {
@@ -171,10 +223,7 @@ public class PredicateHandler {
 						paramMatch = true;
 				}
 				if (paramMatch) {
-					for (AnalysisSeedWithSpecification secondSeed : Lists.newArrayList(cryptoScanner.getAnalysisSeeds())) {
-						secondSeed.registerResultsHandler(new AddPredicateToOtherSeed(statement, base, callerMethod, ensPred, secondSeed));
-
-					}
+					addPredicateToSeedsReaching(statement, new Val(base, callerMethod), ensPred);
 				}
 			}
 
@@ -186,10 +235,8 @@ public class PredicateHandler {
 						paramMatch = true;
 				}
 				if (paramMatch) {
-					for (AnalysisSeedWithSpecification spec : Lists.newArrayList(cryptoScanner.getAnalysisSeeds())) {
-						if (spec.stmt().equals(statement)) {
-							spec.addEnsuredPredicate(ensPred);
-						}
+					for (AnalysisSeedWithSpecification spec : Lists.newArrayList(seedsByStatement.get(statement))) {
+						spec.addEnsuredPredicate(ensPred);
 					}
 				}
 			}
@@ -198,19 +245,21 @@ public class PredicateHandler {
 	}
 
 	public void expectPredicate(IAnalysisSeed object, Statement stmt, CrySLPredicate predToBeEnsured) {
-		for (Unit succ : cryptoScanner.icfg().getSuccsOf(stmt.getUnit().get())) {
-			Set<CrySLPredicate> set = expectedPredicateObjectBased.get(succ, object);
-			if (set == null)
-				set = Sets.newHashSet();
-			set.add(predToBeEnsured);
-			expectedPredicateObjectBased.put(new Statement((Stmt) succ, stmt.getMethod()), object, set);
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			for (Unit succ : cryptoScanner.icfg().getSuccsOf(stmt.getUnit().get())) {
+				Statement succStmt = new Statement((Stmt) succ, stmt.getMethod());
+				expectedPredicateObjectBased.add(succStmt, object, predToBeEnsured);
+				expectingStatements.add(succStmt);
+			}
 		}
 	}
 
 	public void checkPredicates() {
-		checkMissingRequiredPredicates();
-		checkForContradictions();
-		cryptoScanner.getAnalysisListener().ensuredPredicates(this.existingPredicates, expectedPredicateObjectBased, computeMissingPredicates());
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			checkMissingRequiredPredicates();
+			checkForContradictions();
+			cryptoScanner.getAnalysisListener().ensuredPredicates(existingPredicates.asTable(), expectedPredicateObjectBased.asTable(), computeMissingPredicates());
+		}
 	}
 
 	private void checkMissingRequiredPredicates() {
@@ -240,49 +289,105 @@ public class PredicateHandler {
 		}
 	}
 
-	private void checkForContradictions() {
-		Set<Entry<CrySLPredicate, CrySLPredicate>> contradictionPairs = new HashSet<Entry<CrySLPredicate, CrySLPredicate>>();
-		for (ClassSpecification c : cryptoScanner.getClassSpecifictions()) {
-			CrySLRule rule = c.getRule();
-			for (ISLConstraint cons : rule.getConstraints()) {
-				if (cons instanceof CrySLPredicate && ((CrySLPredicate) cons).isNegated()) {
-					contradictionPairs.add(new SimpleEntry<CrySLPredicate, CrySLPredicate>(rule.getPredicates().get(0), ((CrySLPredicate) cons).setNegated(false)));
+	/**
+	 * Computes the pairs of contradicting predicates of the rules: the first predicate a rule ensures contradicts the
+	 * predicates the rule requires to be absent. Predicates are matched by name, hence the names are interned.
+	 */
+	public void computeContradictionPairs(Collection<ClassSpecification> specifications) {
+		synchronized (cryptoScanner.getAnalysisLock()) {
+			Map<Entry<CrySLPredicate, CrySLPredicate>, ContradictionPair> pairs = Maps.newLinkedHashMap();
+			for (ClassSpecification c : specifications) {
+				CrySLRule rule = c.getRule();
+				for (ISLConstraint cons : rule.getConstraints()) {
+					if (cons instanceof CrySLPredicate && ((CrySLPredicate) cons).isNegated() && !rule.getPredicates().isEmpty()) {
+						Entry<CrySLPredicate, CrySLPredicate> pair = new SimpleEntry<CrySLPredicate, CrySLPredicate>(rule.getPredicates().get(0), ((CrySLPredicate) cons).setNegated(false));
+						if (!pairs.containsKey(pair)) {
+							pairs.put(pair, new ContradictionPair(pair, predicateNames.intern(pair.getKey().getPredName()), predicateNames.intern(pair.getValue().getPredName())));
+						}
+					}
 				}
 			}
-		}
-		for (Statement generatingPredicateStmt : expectedPredicateObjectBased.rowKeySet()) {
-			for (Entry<Val, Set<EnsuredCrySLPredicate>> exPredCell : existingPredicates.row(generatingPredicateStmt).entrySet()) {
-				Set<String> preds = new HashSet<String>();
-				for (EnsuredCrySLPredicate exPred : exPredCell.getValue()) {
-					preds.add(exPred.getPredicate().getPredName());
+			contradictionPairsByName.clear();
+			for (ContradictionPair pair : pairs.values()) {
+				contradictionPairsByName.put(pair.first, pair);
+				if (pair.second != pair.first) {
+					contradictionPairsByName.put(pair.second, pair);
 				}
-				for (Entry<CrySLPredicate, CrySLPredicate> disPair : contradictionPairs) {
-					if (preds.contains(disPair.getKey().getPredName()) && preds.contains(disPair.getValue().getPredName())) {
-						cryptoScanner.getAnalysisListener().reportError(null, new PredicateContradictionError(generatingPredicateStmt, null, disPair));
-					}
+			}
+		}
+	}
+
+	/**
+	 * Records the contradictions the predicate completes at the statement/value pair.
+	 */
+	private void detectContradictions(Statement statement, Val variable, EnsuredCrySLPredicate ensPred) {
+		int name = predicateNames.find(ensPred.getPredicate().getPredName());
+		if (name < 0) {
+			return;
+		}
+		for (ContradictionPair pair : contradictionPairsByName.get(name)) {
+			int other = pair.first == name ? pair.second : pair.first;
+			boolean contradicts = other == name;
+			for (EnsuredCrySLPredicate exPred : existingPredicates.get(statement, variable)) {
+				if (!contradicts && predicateNames.find(exPred.getPredicate().getPredName()) == other) {
+					contradicts = true;
 				}
 			}
+			if (contradicts) {
+				contradictions.put(Maps.immutableEntry(statement, variable), pair);
+			}
+		}
+	}
+
+	private void checkForContradictions() {
+		for (Entry<Entry<Statement, Val>, ContradictionPair> contradiction : contradictions.entries()) {
+			Statement generatingPredicateStmt = contradiction.getKey().getKey();
+			if (expectingStatements.contains(generatingPredicateStmt)) {
+				cryptoScanner.getAnalysisListener().reportError(null, new PredicateContradictionError(generatingPredicateStmt, null, contradiction.getValue().predicates));
+			}
 		}
 	}
 
 	private Table<Statement, IAnalysisSeed, Set<CrySLPredicate>> computeMissingPredicates() {
 		Table<Statement, IAnalysisSeed, Set<CrySLPredicate>> res = HashBasedTable.create();
-		for (Cell<Statement, IAnalysisSeed, Set<CrySLPredicate>> c : expectedPredicateObjectBased.cellSet()) {
-			Set<EnsuredCrySLPredicate> exPreds = existingPredicatesObjectBased.get(c.getRowKey(), c.getColumnKey());
-			if (c.getValue() == null)
-				continue;
-			HashSet<CrySLPredicate> expectedPreds = new HashSet<>(c.getValue());
-			if (exPreds == null) {
-				exPreds = Sets.newHashSet();
-			}
-			for (EnsuredCrySLPredicate p : exPreds) {
+		for (Entry<Statement, IAnalysisSeed> c : expectedPredicateObjectBased.cellKeys()) {
+			HashSet<CrySLPredicate> expectedPreds = new HashSet<>(expectedPredicateObjectBased.get(c.getKey(), c.getValue()));
+			for (EnsuredCrySLPredicate p : existingPredicatesObjectBased.get(c.getKey(), c.getValue())) {
 				expectedPreds.remove(p.getPredicate());
 			}
 			if (!expectedPreds.isEmpty()) {
-				res.put(c.getRowKey(), c.getColumnKey(), expectedPreds);
+				res.put(c.getKey(), c.getValue(), expectedPreds);
 			}
 		}
 		return res;
 	}
 
+
+	private static class PredicateFact {
+
+		private final IAnalysisSeed seed;
+		private final Statement statement;
+		private final Val variable;
+		private final EnsuredCrySLPredicate predicate;
+
+		private PredicateFact(IAnalysisSeed seed, Statement statement, Val variable, EnsuredCrySLPredicate predicate) {
+			this.seed = seed;
+			this.statement = statement;
+			this.variable = variable;
+			this.predicate = predicate;
+		}
+	}
+
+	private static class ContradictionPair {
+
+		private final Entry<CrySLPredicate, CrySLPredicate> predicates;
+		private final int first;
+		private final int second;
+
+		private ContradictionPair(Entry<CrySLPredicate, CrySLPredicate> predicates, int first, int second) {
+			this.predicates = predicates;
+			this.first = first;
+			this.second = second;
+		}
+	}
 }
@@ -0,0 +1,172 @@
+package crypto.predicates;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+
+import boomerang.jimple.Statement;
+
+/**
+ * Sets of predicates per statement and column, e.g. a value or a seed. Statements, columns and
+ * predicates are interned to int ids. A cell is stored under a single long combining the ids of its
+ * statement and column and holds the sorted ids of its predicates, instead of a hash set per cell.
+ * Interners may be shared between tables with the same key or predicate types.
+ *
+ * Not thread-safe, the {@link PredicateHandler} uses it while holding the analysis lock. The sets
+ * returned are read-only views of the cells.
+ */
+public class PredicateTable<C, P> {
+
+	private static final int[] EMPTY = new int[0];
+
+	private final Interner<Statement> statements;
+	private final Interner<C> columns;
+	private final Interner<P> predicates;
+	private final Map<Long, int[]> cells = Maps.newHashMap();
+
+	public PredicateTable(Interner<Statement> statements, Interner<C> columns, Interner<P> predicates) {
+		this.statements = statements;
+		this.columns = columns;
+		this.predicates = predicates;
+	}
+
+	/**
+	 * @return <code>true</code> if the predicate was not in the cell before
+	 */
+	public boolean add(Statement statement, C column, P predicate) {
+		long key = key(statements.intern(statement), columns.intern(column));
+		int id = predicates.intern(predicate);
+		int[] ids = cells.get(key);
+		if (ids == null) {
+			cells.put(key, new int[] { id });
+			return true;
+		}
+		int pos = Arrays.binarySearch(ids, id);
+		if (pos >= 0) {
+			return false;
+		}
+		int insert = -pos - 1;
+		int[] grown = new int[ids.length + 1];
+		System.arraycopy(ids, 0, grown, 0, insert);
+		grown[insert] = id;
+		System.arraycopy(ids, insert, grown, insert + 1, ids.length - insert);
+		cells.put(key, grown);
+		return true;
+	}
+
+	/**
+	 * @return a read-only view of the predicates in the cell, empty if the cell does not exist
+	 */
+	public Set<P> get(Statement statement, C column) {
+		Long key = find(statement, column);
+		if (key == null) {
+			return Collections.emptySet();
+		}
+		return new CellView(key);
+	}
+
+	/**
+	 * @return a read-only table with a view of each cell, cells added later are not contained
+	 */
+	public Table<Statement, C, Set<P>> asTable() {
+		ImmutableTable.Builder<Statement, C, Set<P>> table = ImmutableTable.builder();
+		for (Long key : cells.keySet()) {
+			table.put(statements.get(row(key)), columns.get(column(key)), new CellView(key));
+		}
+		return table.build();
+	}
+
+	public Iterable<Entry<Statement, C>> cellKeys() {
+		return () -> new Iterator<Entry<Statement, C>>() {
+			private final Iterator<Long> keys = cells.keySet().iterator();
+
+			@Override
+			public boolean hasNext() {
+				return keys.hasNext();
+			}
+
+			@Override
+			public Entry<Statement, C> next() {
+				long key = keys.next();
+				return Maps.immutableEntry(statements.get(row(key)), columns.get(column(key)));
+			}
+		};
+	}
+
+	private Long find(Statement statement, C column) {
+		int row = statements.find(statement);
+		int col = columns.find(column);
+		if (row < 0 || col < 0) {
+			return null;
+		}
+		return key(row, col);
+	}
+
+	private static long key(int row, int column) {
+		return ((long) row << 32) | (column & 0xffffffffL);
+	}
+
+	private static int row(long key) {
+		return (int) (key >>> 32);
+	}
+
+	private static int column(long key) {
+		return (int) key;
+	}
+
+	private class CellView extends AbstractSet<P> {
+
+		private final long key;
+
+		private CellView(long key) {
+			this.key = key;
+		}
+
+		private int[] ids() {
+			int[] ids = cells.get(key);
+			return ids == null ? EMPTY : ids;
+		}
+
+		@Override
+		public Iterator<P> iterator() {
+			final int[] ids = ids();
+			return new Iterator<P>() {
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return next < ids.length;
+				}
+
+				@Override
+				public P next() {
+					if (next >= ids.length) {
+						throw new NoSuchElementException();
+					}
+					return predicates.get(ids[next++]);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ids().length;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o) {
+			int id = predicates.find((P) o);
+			return id >= 0 && Arrays.binarySearch(ids(), id) >= 0;
+		}
+	}
+}
@@ -63,6 +63,7 @@ public class CSVReporter extends CrySLAnalysisListener {
 	private static final String CSV_SEPARATOR = ";";
 	private Set<AbstractError> errors = Sets.newHashSet();
 	private int seeds;
+	private int skippedSeeds;
 	private List<String> headers = Lists.newArrayList();
 	private Map<String,String> headersToValues = Maps.newHashMap();
 	private List<CrySLRule> rules;
@@ -71,7 +72,7 @@ public class CSVReporter extends CrySLAnalysisListener {
 	private String csvReportFileName;
 	private enum Headers{
 		SoftwareID,SeedObjectCount,CallGraphTime_ms,CryptoAnalysisTime_ms,CallGraphReachableMethods,
-		CallGraphReachableMethods_ActiveBodies,DataflowVisitedMethod
+		CallGraphReachableMethods_ActiveBodies,DataflowVisitedMethod,SkippedSeedObjectCount
 	}
 
 	public CSVReporter(String csvReportFileName, String softwareId,  List<CrySLRule> rules, long callGraphConstructionTime) {
@@ -124,6 +125,7 @@ public class CSVReporter extends CrySLAnalysisListener {
 		put(Headers.DataflowVisitedMethod, dataflowReachableMethods.size());
 		put(Headers.CryptoAnalysisTime_ms, analysisTime.elapsed(TimeUnit.MILLISECONDS));
 		put(Headers.SeedObjectCount, seeds);
+		put(Headers.SkippedSeedObjectCount, skippedSeeds);
 		
 		Table<Class, CrySLRule, Integer> errorTable = HashBasedTable.create(); 
 		for(AbstractError err : errors){
@@ -278,6 +280,11 @@ public class CSVReporter extends CrySLAnalysisListener {
 		
 	}
 
+	@Override
+	public void analysisIncomplete(Collection<IAnalysisSeed> skippedSeeds) {
+		this.skippedSeeds = skippedSeeds.size();
+	}
+
 	@Override
 	public void addProgress(int processedSeeds, int workListsize) {
 		// TODO Auto-generated method stub
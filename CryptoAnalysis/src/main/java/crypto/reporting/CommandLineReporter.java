@@ -57,6 +57,18 @@ public class CommandLineReporter extends ErrorMarkerListener {
 			s += String.format("\t\tSHA-256: %s\n", r.getObjectId());
 			s += String.format("\t\tSecure: %s\n", secureObjects.contains(r));
 		}
+
+		if (partialReport) {
+			s += "\n";
+			s += "Skipped Objects (not analyzed, time budget exhausted): \n";
+			for (IAnalysisSeed r : this.skippedObjects) {
+				s += String.format("\tObject:\n");
+				s += String.format("\t\tVariable: %s\n", r.var().value());
+				s += String.format("\t\tType: %s\n", r.getType());
+				s += String.format("\t\tStatement: %s\n", r.stmt().getUnit().get());
+				s += String.format("\t\tMethod: %s\n", r.getMethod());
+			}
+		}
 		
 		
 		s += "\n";
@@ -80,6 +92,12 @@ public class CommandLineReporter extends ErrorMarkerListener {
 		s += "======================= CogniCrypt Summary ==========================\n";
 		s += String.format("\tNumber of CrySL rules: %s\n", rules.size());
 		s += String.format("\tNumber of Objects Analyzed: %s\n", this.objects.size());
+		for (Entry<String, Integer> e : timeoutsByPolicy.entrySet()) {
+			s += String.format("\tTimeouts (%s): %s\n", e.getKey(), e.getValue());
+		}
+		if (partialReport) {
+			s += String.format("\tPARTIAL REPORT: %s objects were not analyzed because the time budget was exhausted.\n", this.skippedObjects.size());
+		}
 		if(this.errorMarkers.rowKeySet().isEmpty()){
 			s += "No violation of any of the rules found.";
 		} else{
@@ -33,6 +33,7 @@ import crypto.analysis.errors.NeverTypeOfError;
 import crypto.analysis.errors.PredicateContradictionError;
 import crypto.analysis.errors.RequiredPredicateError;
 import crypto.analysis.errors.TypestateError;
+import crypto.boomerang.QueryTimeout;
 import crypto.extractparameter.CallSiteWithParamIndex;
 import crypto.extractparameter.ExtractedValue;
 import crypto.interfaces.ISLConstraint;
@@ -54,6 +55,9 @@ public class ErrorMarkerListener extends CrySLAnalysisListener {
 	protected final Table<SootClass, SootMethod, Set<AbstractError>> errorMarkers = HashBasedTable.create(); 
 	protected final Map<Class, Integer> errorMarkerCount = new HashMap<Class, Integer>();
 	protected final List<IAnalysisSeed> secureObjects = new ArrayList<IAnalysisSeed>();
+	protected final List<IAnalysisSeed> skippedObjects = new ArrayList<IAnalysisSeed>();
+	protected boolean partialReport;
+	protected final Map<String, Integer> timeoutsByPolicy = new HashMap<String, Integer>();
 	
 	private void addMarker(AbstractError error) {
 		SootMethod method = error.getErrorLocation().getMethod();
@@ -201,6 +205,12 @@ public class ErrorMarkerListener extends CrySLAnalysisListener {
 		//Nothing
 	}
 
+	@Override
+	public void onSeedTimeout(Node<Statement, Val> seed, QueryTimeout timeout) {
+		timeoutsByPolicy.merge(timeout.getKind().getName() + " queries, " + timeout.getPolicy(), 1, Integer::sum);
+		onSeedTimeout(seed);
+	}
+
 	@Override
 	public void seedStarted(final IAnalysisSeed arg0) {
 		// Nothing
@@ -214,5 +224,11 @@ public class ErrorMarkerListener extends CrySLAnalysisListener {
 		// TODO Auto-generated method stub
 		
 	}
+
+	@Override
+	public void analysisIncomplete(Collection<IAnalysisSeed> skippedSeeds) {
+		partialReport = true;
+		skippedObjects.addAll(skippedSeeds);
+	}
 }
 
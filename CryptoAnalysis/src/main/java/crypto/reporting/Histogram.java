@@ -0,0 +1,89 @@
+package crypto.reporting;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Distribution of durations in milliseconds. The values are counted in buckets with exponentially
+ * growing upper bounds (0, 1, 3, 7, 15, ... ms), so the memory is constant and percentiles are
+ * accurate up to a factor of two.
+ */
+public class Histogram {
+
+	private static final int BUCKETS = 32;
+
+	private final long[] buckets = new long[BUCKETS];
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	public synchronized void record(long millis) {
+		long value = Math.max(0, millis);
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+		buckets[bucket(value)]++;
+	}
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	public synchronized long getSum() {
+		return sum;
+	}
+
+	/**
+	 * @param percentile between 0 and 1
+	 * @return the upper bound of the bucket containing the percentile, capped at the maximum
+	 */
+	public synchronized long getPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile * count);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				return Math.min(max, upperBound(i));
+			}
+		}
+		return max;
+	}
+
+	private static int bucket(long value) {
+		int bucket = 64 - Long.numberOfLeadingZeros(value);
+		return Math.min(bucket, BUCKETS - 1);
+	}
+
+	private static long upperBound(int bucket) {
+		return bucket == 0 ? 0 : (1L << bucket) - 1;
+	}
+
+	@SuppressWarnings("unchecked")
+	public synchronized JSONObject toJSON() {
+		JSONObject json = new JSONObject();
+		json.put("count", count);
+		json.put("sum", sum);
+		json.put("min", count == 0 ? 0 : min);
+		json.put("max", max);
+		json.put("mean", count == 0 ? 0 : (double) sum / count);
+		json.put("p50", getPercentile(0.5));
+		json.put("p95", getPercentile(0.95));
+		json.put("p99", getPercentile(0.99));
+		JSONArray bucketCounts = new JSONArray();
+		for (int i = 0; i < BUCKETS; i++) {
+			if (buckets[i] > 0) {
+				JSONObject b = new JSONObject();
+				b.put("le", upperBound(i));
+				b.put("count", buckets[i]);
+				bucketCounts.add(b);
+			}
+		}
+		json.put("buckets", bucketCounts);
+		return json;
+	}
+}
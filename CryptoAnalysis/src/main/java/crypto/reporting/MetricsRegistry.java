@@ -0,0 +1,79 @@
+package crypto.reporting;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Counters and histograms of the analysis, each recorded in total and per rule. Metrics are
+ * identified by a name, e.g. "seeds.discovered", and created on first use.
+ */
+public class MetricsRegistry {
+
+	public static final String TOTAL = "total";
+
+	private final Map<String, Map<String, Long>> counters = new TreeMap<>();
+	private final Map<String, Map<String, Histogram>> histograms = new TreeMap<>();
+
+	/**
+	 * @param name the name of the counter
+	 * @param rule the class name of the rule, <code>null</code> to only count the total
+	 */
+	public synchronized void increment(String name, String rule) {
+		Map<String, Long> counter = counters.computeIfAbsent(name, n -> new TreeMap<>());
+		counter.merge(TOTAL, 1L, Long::sum);
+		if (rule != null) {
+			counter.merge(rule, 1L, Long::sum);
+		}
+	}
+
+	/**
+	 * @param name the name of the histogram
+	 * @param rule the class name of the rule, <code>null</code> to only record the total
+	 * @param millis the recorded duration
+	 */
+	public synchronized void record(String name, String rule, long millis) {
+		Map<String, Histogram> histogram = histograms.computeIfAbsent(name, n -> new TreeMap<>());
+		histogram.computeIfAbsent(TOTAL, r -> new Histogram()).record(millis);
+		if (rule != null) {
+			histogram.computeIfAbsent(rule, r -> new Histogram()).record(millis);
+		}
+	}
+
+	public synchronized long getCount(String name, String rule) {
+		Map<String, Long> counter = counters.get(name);
+		if (counter == null || !counter.containsKey(rule)) {
+			return 0;
+		}
+		return counter.get(rule);
+	}
+
+	public synchronized Histogram getHistogram(String name, String rule) {
+		Map<String, Histogram> histogram = histograms.get(name);
+		return histogram == null ? null : histogram.get(rule);
+	}
+
+	@SuppressWarnings("unchecked")
+	public synchronized JSONObject toJSON() {
+		JSONObject counterJson = new JSONObject();
+		for (Entry<String, Map<String, Long>> counter : counters.entrySet()) {
+			JSONObject perRule = new JSONObject();
+			perRule.putAll(counter.getValue());
+			counterJson.put(counter.getKey(), perRule);
+		}
+		JSONObject histogramJson = new JSONObject();
+		for (Entry<String, Map<String, Histogram>> histogram : histograms.entrySet()) {
+			JSONObject perRule = new JSONObject();
+			for (Entry<String, Histogram> e : histogram.getValue().entrySet()) {
+				perRule.put(e.getKey(), e.getValue().toJSON());
+			}
+			histogramJson.put(histogram.getKey(), perRule);
+		}
+		JSONObject json = new JSONObject();
+		json.put("counters", counterJson);
+		json.put("histograms", histogramJson);
+		return json;
+	}
+}
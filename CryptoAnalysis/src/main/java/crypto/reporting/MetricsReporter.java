@@ -0,0 +1,275 @@
+package crypto.reporting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Table;
+
+import boomerang.BackwardQuery;
+import boomerang.Query;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.results.ForwardBoomerangResults;
+import crypto.analysis.AnalysisSeedWithSpecification;
+import crypto.analysis.CrySLAnalysisListener;
+import crypto.analysis.EnsuredCrySLPredicate;
+import crypto.analysis.IAnalysisSeed;
+import crypto.analysis.errors.AbstractError;
+import crypto.boomerang.QueryTimeout;
+import crypto.extractparameter.CallSiteWithParamIndex;
+import crypto.extractparameter.ExtractedValue;
+import crypto.interfaces.ISLConstraint;
+import crypto.rules.CrySLPredicate;
+import sync.pds.solver.nodes.Node;
+import typestate.TransitionFunction;
+
+/**
+ * Records counters and timing histograms of the analysis per rule in a {@link MetricsRegistry} and
+ * writes them as JSON file at the end of the analysis. Optionally, the metrics collected so far are
+ * also written at a fixed interval while the analysis runs.
+ */
+public class MetricsReporter extends CrySLAnalysisListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetricsReporter.class);
+	private static final String ENSURED_PREDICATE_SEED = "ensuredPredicate";
+
+	private final MetricsRegistry registry = new MetricsRegistry();
+	private final File metricsFile;
+	private final long intervalInSeconds;
+	private ScheduledExecutorService exporter;
+	private long analysisStart;
+	private long seedDiscoveryStart;
+	private final Map<IAnalysisSeed, Long> seedStart = Maps.newHashMap();
+	private final Map<IAnalysisSeed, Long> typestateStart = Maps.newHashMap();
+	private final Map<IAnalysisSeed, Long> constraintCheckStart = Maps.newHashMap();
+	private final Map<IAnalysisSeed, Long> predicateCheckStart = Maps.newHashMap();
+	// Equal queries of different seeds may run at the same time, hence the queries are identified by
+	// the instance passed when starting and finishing them
+	private final Map<BackwardQuery, Long> queryStart = Maps.newIdentityHashMap();
+
+	/**
+	 * @param metricsFile the JSON file the metrics are written to
+	 * @param intervalInSeconds the interval to write intermediate metrics, 0 to only write them at the end
+	 */
+	public MetricsReporter(File metricsFile, long intervalInSeconds) {
+		this.metricsFile = metricsFile;
+		this.intervalInSeconds = intervalInSeconds;
+	}
+
+	public MetricsRegistry getRegistry() {
+		return registry;
+	}
+
+	@Override
+	public void beforeAnalysis() {
+		analysisStart = System.nanoTime();
+		if (intervalInSeconds > 0) {
+			exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "CryptoAnalysis-Metrics");
+				thread.setDaemon(true);
+				return thread;
+			});
+			exporter.scheduleAtFixedRate(() -> write(false), intervalInSeconds, intervalInSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public void afterAnalysis() {
+		if (exporter != null) {
+			awaitExporter();
+		}
+		registry.record("analysis.time_ms", null, elapsedSince(analysisStart));
+		write(true);
+	}
+
+	/**
+	 * Stops the interval writes. A write in progress is not interrupted, as an interrupt closes the file
+	 * it writes to, but awaited, such that the final metrics are written after it.
+	 */
+	private void awaitExporter() {
+		exporter.shutdown();
+		try {
+			if (!exporter.awaitTermination(1, TimeUnit.MINUTES)) {
+				LOGGER.warn("Writing the intermediate metrics did not finish within a minute");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void beforeSeedDiscovery() {
+		seedDiscoveryStart = System.nanoTime();
+	}
+
+	@Override
+	public void afterSeedDiscovery() {
+		registry.record("seed_discovery.time_ms", null, elapsedSince(seedDiscoveryStart));
+	}
+
+	@Override
+	public void discoveredSeed(IAnalysisSeed seed) {
+		registry.increment("seeds.discovered", rule(seed));
+	}
+
+	@Override
+	public void seedStarted(IAnalysisSeed seed) {
+		seedStart.put(seed, System.nanoTime());
+	}
+
+	@Override
+	public void onSeedFinished(IAnalysisSeed seed, ForwardBoomerangResults<TransitionFunction> analysisResults) {
+		registry.increment("seeds.finished", rule(seed));
+		Long start = seedStart.remove(seed);
+		if (start != null) {
+			registry.record("seed.time_ms", rule(seed), elapsedSince(start));
+		}
+	}
+
+	@Override
+	public void beforeTypestateAnalysis(IAnalysisSeed seed) {
+		typestateStart.put(seed, System.nanoTime());
+	}
+
+	@Override
+	public void afterTypestateAnalysis(IAnalysisSeed seed) {
+		Long start = typestateStart.remove(seed);
+		if (start != null) {
+			registry.record("typestate.time_ms", rule(seed), elapsedSince(start));
+		}
+	}
+
+	@Override
+	public void boomerangQueryStarted(Query seed, BackwardQuery q) {
+		queryStart.put(q, System.nanoTime());
+	}
+
+	@Override
+	public void boomerangQueryFinished(Query seed, BackwardQuery q) {
+		String rule = seed instanceof IAnalysisSeed ? rule((IAnalysisSeed) seed) : null;
+		registry.increment("extraction.queries", rule);
+		Long start = queryStart.remove(q);
+		if (start != null) {
+			registry.record("extraction.time_ms", rule, elapsedSince(start));
+		}
+	}
+
+	@Override
+	public void beforeConstraintCheck(AnalysisSeedWithSpecification seed) {
+		constraintCheckStart.put(seed, System.nanoTime());
+	}
+
+	@Override
+	public void afterConstraintCheck(AnalysisSeedWithSpecification seed) {
+		registry.increment("constraint.checks", rule(seed));
+		Long start = constraintCheckStart.remove(seed);
+		if (start != null) {
+			registry.record("constraint.time_ms", rule(seed), elapsedSince(start));
+		}
+	}
+
+	@Override
+	public void beforePredicateCheck(AnalysisSeedWithSpecification seed) {
+		predicateCheckStart.put(seed, System.nanoTime());
+	}
+
+	@Override
+	public void afterPredicateCheck(AnalysisSeedWithSpecification seed) {
+		registry.increment("predicate.checks", rule(seed));
+		Long start = predicateCheckStart.remove(seed);
+		if (start != null) {
+			registry.record("predicate.time_ms", rule(seed), elapsedSince(start));
+		}
+	}
+
+	@Override
+	public void onSeedTimeout(Node<Statement, Val> seed) {
+	}
+
+	@Override
+	public void onSeedTimeout(Node<Statement, Val> seed, QueryTimeout timeout) {
+		String rule = timeout.getRule() != null ? timeout.getRule().getClassName() : ENSURED_PREDICATE_SEED;
+		registry.increment("timeouts." + timeout.getKind().getName(), rule);
+	}
+
+	@Override
+	public void reportError(AbstractError error) {
+		registry.increment("errors." + error.getClass().getSimpleName(), error.getRule() != null ? error.getRule().getClassName() : null);
+	}
+
+	@Override
+	public void analysisIncomplete(Collection<IAnalysisSeed> skippedSeeds) {
+		for (IAnalysisSeed seed : skippedSeeds) {
+			registry.increment("seeds.skipped", rule(seed));
+		}
+	}
+
+	@Override
+	public void ensuredPredicates(Table<Statement, Val, Set<EnsuredCrySLPredicate>> existingPredicates, Table<Statement, IAnalysisSeed, Set<CrySLPredicate>> expectedPredicates,
+			Table<Statement, IAnalysisSeed, Set<CrySLPredicate>> missingPredicates) {
+	}
+
+	@Override
+	public void checkedConstraints(AnalysisSeedWithSpecification analysisSeedWithSpecification, Collection<ISLConstraint> relConstraints) {
+	}
+
+	@Override
+	public void collectedValues(AnalysisSeedWithSpecification seed, Multimap<CallSiteWithParamIndex, ExtractedValue> collectedValues) {
+	}
+
+	@Override
+	public void onSecureObjectFound(IAnalysisSeed analysisObject) {
+	}
+
+	@Override
+	public void addProgress(int processedSeeds, int workListsize) {
+	}
+
+	private static String rule(IAnalysisSeed seed) {
+		if (seed instanceof AnalysisSeedWithSpecification) {
+			return ((AnalysisSeedWithSpecification) seed).getSpec().getRule().getClassName();
+		}
+		return ENSURED_PREDICATE_SEED;
+	}
+
+	private static long elapsedSince(long startNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+
+	@SuppressWarnings("unchecked")
+	private synchronized void write(boolean complete) {
+		JSONObject json = registry.toJSON();
+		json.put("complete", complete);
+		json.put("elapsed_ms", elapsedSince(analysisStart));
+		File file = metricsFile.getAbsoluteFile();
+		try {
+			if (file.getParentFile() != null) {
+				Files.createDirectories(file.getParentFile().toPath());
+			}
+			// Write to a temporary file first, such that readers never see a partially written file
+			File tmp = new File(file.getPath() + ".tmp");
+			try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+				writer.write(json.toJSONString());
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			LOGGER.error("Could not write the metrics to " + file, e);
+		}
+	}
+}
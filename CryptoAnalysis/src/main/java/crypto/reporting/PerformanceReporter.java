@@ -0,0 +1,349 @@
+package crypto.reporting;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+
+import boomerang.BackwardQuery;
+import boomerang.Query;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.results.ForwardBoomerangResults;
+import crypto.analysis.AnalysisSeedWithSpecification;
+import crypto.analysis.CrySLAnalysisListener;
+import crypto.analysis.EnsuredCrySLPredicate;
+import crypto.analysis.IAnalysisSeed;
+import crypto.analysis.errors.AbstractError;
+import crypto.extractparameter.CallSiteWithParamIndex;
+import crypto.extractparameter.ExtractedValue;
+import crypto.interfaces.ISLConstraint;
+import crypto.rules.CrySLPredicate;
+import sync.pds.solver.nodes.Node;
+import typestate.TransitionFunction;
+
+/**
+ * Breaks the time and the allocated memory of an analysis run down by phase and by rule, and lists
+ * the most expensive seeds. The times of the phases executed per seed are summed over all seeds,
+ * hence they exceed the wall time when seeds are analyzed by several threads. Allocations are
+ * measured per thread and are only available on JVMs that support thread allocation counting.
+ */
+public class PerformanceReporter extends CrySLAnalysisListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PerformanceReporter.class);
+	private static final String ENSURED_PREDICATE_SEED = "ensuredPredicate";
+	private static final int TOP_SEEDS = 20;
+
+	public static enum Phase {
+		SOOT_SETUP("Soot setup"), CALL_GRAPH("Call graph"), SEED_DISCOVERY("Seed discovery"), TYPESTATE("IDEAL typestate"),
+		EXTRACT_PARAMETERS("ExtractParameterAnalysis"), CONSTRAINTS("ConstraintSolver"), PREDICATES("PredicateHandler");
+
+		private final String name;
+
+		private Phase(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	private final File reportFile;
+	private final Map<Phase, Measurement> phases = new EnumMap<>(Phase.class);
+	private final Table<String, Phase, Measurement> rules = HashBasedTable.create();
+	private final Map<IAnalysisSeed, Measurement> seeds = Maps.newHashMap();
+	// Equal queries of different seeds may run at the same time, hence the phases are identified by
+	// the instance passed when starting and finishing them
+	private final Table<Phase, Object, Start> started = Tables.newCustomTable(new EnumMap<>(Phase.class), Maps::newIdentityHashMap);
+
+	/**
+	 * @param reportFile the file the report is written to
+	 */
+	public PerformanceReporter(File reportFile) {
+		this.reportFile = reportFile;
+		for (Phase phase : Phase.values()) {
+			phases.put(phase, new Measurement());
+		}
+	}
+
+	/**
+	 * Records a phase that ran before the analysis, i.e. the Soot setup or the call graph construction.
+	 */
+	public void addPhase(Phase phase, long millis, long allocatedBytes) {
+		phases.get(phase).add(TimeUnit.MILLISECONDS.toNanos(millis), allocatedBytes);
+	}
+
+	/**
+	 * @return the number of bytes allocated by the current thread so far, -1 if the JVM does not support it
+	 */
+	public static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+			if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+				return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	private void start(Phase phase, Object key) {
+		started.put(phase, key, new Start(System.nanoTime(), allocatedBytes()));
+	}
+
+	private void finish(Phase phase, Object key, IAnalysisSeed seed) {
+		Start start = started.remove(phase, key);
+		if (start == null) {
+			return;
+		}
+		long nanos = System.nanoTime() - start.nanos;
+		long bytes = start.allocatedBytes < 0 ? -1 : allocatedBytes() - start.allocatedBytes;
+		phases.get(phase).add(nanos, bytes);
+		if (seed == null) {
+			return;
+		}
+		String rule = rule(seed);
+		Measurement perRule = rules.get(rule, phase);
+		if (perRule == null) {
+			perRule = new Measurement();
+			rules.put(rule, phase, perRule);
+		}
+		perRule.add(nanos, bytes);
+		Measurement perSeed = seeds.get(seed);
+		if (perSeed == null) {
+			perSeed = new Measurement();
+			seeds.put(seed, perSeed);
+		}
+		perSeed.add(nanos, bytes);
+	}
+
+	@Override
+	public void beforeSeedDiscovery() {
+		start(Phase.SEED_DISCOVERY, Phase.SEED_DISCOVERY);
+	}
+
+	@Override
+	public void afterSeedDiscovery() {
+		finish(Phase.SEED_DISCOVERY, Phase.SEED_DISCOVERY, null);
+	}
+
+	@Override
+	public void beforeTypestateAnalysis(IAnalysisSeed seed) {
+		start(Phase.TYPESTATE, seed);
+	}
+
+	@Override
+	public void afterTypestateAnalysis(IAnalysisSeed seed) {
+		finish(Phase.TYPESTATE, seed, seed);
+	}
+
+	@Override
+	public void boomerangQueryStarted(Query seed, BackwardQuery q) {
+		start(Phase.EXTRACT_PARAMETERS, q);
+	}
+
+	@Override
+	public void boomerangQueryFinished(Query seed, BackwardQuery q) {
+		finish(Phase.EXTRACT_PARAMETERS, q, seed instanceof IAnalysisSeed ? (IAnalysisSeed) seed : null);
+	}
+
+	@Override
+	public void beforeConstraintCheck(AnalysisSeedWithSpecification seed) {
+		start(Phase.CONSTRAINTS, seed);
+	}
+
+	@Override
+	public void afterConstraintCheck(AnalysisSeedWithSpecification seed) {
+		finish(Phase.CONSTRAINTS, seed, seed);
+	}
+
+	@Override
+	public void beforePredicateCheck(AnalysisSeedWithSpecification seed) {
+		start(Phase.PREDICATES, seed);
+	}
+
+	@Override
+	public void afterPredicateCheck(AnalysisSeedWithSpecification seed) {
+		finish(Phase.PREDICATES, seed, seed);
+	}
+
+	@Override
+	public void beforeFinalPredicateCheck() {
+		start(Phase.PREDICATES, Phase.PREDICATES);
+	}
+
+	@Override
+	public void afterFinalPredicateCheck() {
+		finish(Phase.PREDICATES, Phase.PREDICATES, null);
+	}
+
+	@Override
+	public void beforeAnalysis() {
+	}
+
+	@Override
+	public void afterAnalysis() {
+		String report = createReport();
+		try (FileWriter writer = new FileWriter(reportFile)) {
+			writer.write(report);
+		} catch (IOException e) {
+			LOGGER.error("Could not write the performance report to " + reportFile.getAbsolutePath(), e);
+			return;
+		}
+		LOGGER.info("Performance report written to {}", reportFile.getAbsolutePath());
+	}
+
+	private String createReport() {
+		StringBuilder s = new StringBuilder();
+		s.append("======================= CogniCrypt Performance Report =======================\n");
+		s.append("Phases (time and allocated memory, per seed phases are summed over all seeds):\n");
+		for (Entry<Phase, Measurement> phase : phases.entrySet()) {
+			s.append(String.format("\t%-26s %s\n", phase.getKey() + ":", phase.getValue()));
+		}
+
+		s.append("\nRules (by total time of their seeds):\n");
+		List<Entry<String, Measurement>> ruleTotals = Lists.newArrayList();
+		for (String rule : rules.rowKeySet()) {
+			Measurement total = new Measurement();
+			for (Measurement m : rules.row(rule).values()) {
+				total.add(m);
+			}
+			ruleTotals.add(Maps.immutableEntry(rule, total));
+		}
+		ruleTotals.sort((a, b) -> Long.compare(b.getValue().nanos, a.getValue().nanos));
+		for (Entry<String, Measurement> rule : ruleTotals) {
+			s.append(String.format("\t%s: %s\n", rule.getKey(), rule.getValue()));
+			for (Entry<Phase, Measurement> phase : rules.row(rule.getKey()).entrySet()) {
+				s.append(String.format("\t\t%-26s %s\n", phase.getKey() + ":", phase.getValue()));
+			}
+		}
+
+		s.append("\nMost expensive seeds:\n");
+		List<Entry<IAnalysisSeed, Measurement>> seedTotals = Lists.newArrayList(seeds.entrySet());
+		seedTotals.sort((a, b) -> Long.compare(b.getValue().nanos, a.getValue().nanos));
+		int rank = 0;
+		for (Entry<IAnalysisSeed, Measurement> seed : seedTotals.subList(0, Math.min(TOP_SEEDS, seedTotals.size()))) {
+			IAnalysisSeed r = seed.getKey();
+			s.append(String.format("\t%s. %s, %s\n", ++rank, rule(r), seed.getValue()));
+			s.append(String.format("\t\tVariable: %s\n", r.var().value()));
+			s.append(String.format("\t\tStatement: %s\n", r.stmt().getUnit().get()));
+			s.append(String.format("\t\tMethod: %s\n", r.getMethod()));
+		}
+		s.append("=============================================================================\n");
+		return s.toString();
+	}
+
+	private static String rule(IAnalysisSeed seed) {
+		if (seed instanceof AnalysisSeedWithSpecification) {
+			return ((AnalysisSeedWithSpecification) seed).getSpec().getRule().getClassName();
+		}
+		return ENSURED_PREDICATE_SEED;
+	}
+
+	private static class Start {
+
+		private final long nanos;
+		private final long allocatedBytes;
+
+		private Start(long nanos, long allocatedBytes) {
+			this.nanos = nanos;
+			this.allocatedBytes = allocatedBytes;
+		}
+	}
+
+	/**
+	 * Sums the times in nanoseconds, such that phases shorter than a millisecond, e.g. most queries,
+	 * still add up. The sums are reported in milliseconds.
+	 */
+	private static class Measurement {
+
+		private long nanos;
+		private long allocatedBytes;
+		private boolean allocationUnknown;
+		private int count;
+
+		private void add(long nanos, long allocatedBytes) {
+			this.nanos += nanos;
+			this.count++;
+			if (allocatedBytes < 0) {
+				allocationUnknown = true;
+			} else {
+				this.allocatedBytes += allocatedBytes;
+			}
+		}
+
+		private void add(Measurement other) {
+			this.nanos += other.nanos;
+			this.count += other.count;
+			this.allocatedBytes += other.allocatedBytes;
+			this.allocationUnknown |= other.allocationUnknown;
+		}
+
+		@Override
+		public String toString() {
+			String allocation = allocationUnknown ? "unknown" : (allocatedBytes / (1024 * 1024)) + " MB";
+			return String.format("%s ms, %s allocated (%s measurements)", TimeUnit.NANOSECONDS.toMillis(nanos), allocation, count);
+		}
+	}
+
+	@Override
+	public void seedStarted(IAnalysisSeed analysisSeedWithSpecification) {
+	}
+
+	@Override
+	public void ensuredPredicates(Table<Statement, Val, Set<EnsuredCrySLPredicate>> existingPredicates, Table<Statement, IAnalysisSeed, Set<CrySLPredicate>> expectedPredicates,
+			Table<Statement, IAnalysisSeed, Set<CrySLPredicate>> missingPredicates) {
+	}
+
+	@Override
+	public void reportError(AbstractError error) {
+	}
+
+	@Override
+	public void checkedConstraints(AnalysisSeedWithSpecification analysisSeedWithSpecification, Collection<ISLConstraint> relConstraints) {
+	}
+
+	@Override
+	public void onSeedTimeout(Node<Statement, Val> seed) {
+	}
+
+	@Override
+	public void onSeedFinished(IAnalysisSeed seed, ForwardBoomerangResults<TransitionFunction> analysisResults) {
+	}
+
+	@Override
+	public void collectedValues(AnalysisSeedWithSpecification seed, Multimap<CallSiteWithParamIndex, ExtractedValue> collectedValues) {
+	}
+
+	@Override
+	public void discoveredSeed(IAnalysisSeed curr) {
+	}
+
+	@Override
+	public void onSecureObjectFound(IAnalysisSeed analysisObject) {
+	}
+
+	@Override
+	public void addProgress(int processedSeeds, int workListsize) {
+	}
+}
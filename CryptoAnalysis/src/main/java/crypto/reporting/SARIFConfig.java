@@ -38,6 +38,12 @@ public class SARIFConfig {
 	public static final String RULES_KEY = "rules";
 	public static final String RULES_ID_KEY = "id";
 	public static final String FULL_DESCRIPTION_KEY = "fullDescription";
+
+	public static final String PROPERTIES_KEY = "properties";
+	public static final String PARTIAL_KEY = "partial";
+	public static final String SKIPPED_OBJECTS_KEY = "skippedObjects";
+	public static final String METHOD_KEY = "method";
+	public static final String STATEMENT_KEY = "statement";
 	
 	//rules and their descriptions
 	public static final String CONSTRAINT_ERROR_KEY = "ConstraintError";
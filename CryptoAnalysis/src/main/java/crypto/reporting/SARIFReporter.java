@@ -101,11 +101,29 @@ public class SARIFReporter extends ErrorMarkerListener {
 		run.put(SARIFConfig.FILES_KEY, this.files);
 		run.put(SARIFConfig.RESULTS_KEY, this.results);
 		run.put(SARIFConfig.RESOURCES_KEY, this.resources);
+		// Only runs that skipped seeds have properties
+		if (this.partialReport) {
+			run.put(SARIFConfig.PROPERTIES_KEY, getRunProperties());
+		}
 		runs.add(run);
 		sarif.put(SARIFConfig.RUNS_KEY, runs);
 		return sarif;
 	}
 
+	private JSONObject getRunProperties() {
+		JSONObject properties = new JSONObject();
+		properties.put(SARIFConfig.PARTIAL_KEY, true);
+		JSONArray skipped = new JSONArray();
+		for (IAnalysisSeed seed : this.skippedObjects) {
+			JSONObject object = new JSONObject();
+			object.put(SARIFConfig.METHOD_KEY, seed.getMethod().getSignature());
+			object.put(SARIFConfig.STATEMENT_KEY, seed.stmt().getUnit().get().toString());
+			skipped.add(object);
+		}
+		properties.put(SARIFConfig.SKIPPED_OBJECTS_KEY, skipped);
+		return properties;
+	}
+
 	@Override
 	public void discoveredSeed(IAnalysisSeed object) {
 		this.objects.add(object);
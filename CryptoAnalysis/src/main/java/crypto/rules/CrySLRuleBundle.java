@@ -0,0 +1,179 @@
+package crypto.rules;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import crypto.exceptions.CryptoAnalysisException;
+
+/**
+ * A precompiled ruleset: the serialized {@link CrySLRule} objects of a ruleset ZIP file. Reading a
+ * bundle does not require Xtext, which makes it much faster than parsing the CrySL files.
+ *
+ * The bundle of <code>rules.zip</code> is stored next to it as <code>rules.cryslbin</code>. It
+ * contains the SHA-256 hash of the ZIP file it was compiled from and is ignored once the ZIP file
+ * changes. Bundles are created by running this class with the path of the ZIP file:
+ * <pre>
+ * java -cp CryptoAnalysis.jar crypto.rules.CrySLRuleBundle &lt;path_to_ruleset_zip&gt;
+ * </pre>
+ *
+ * A bundle is as trustworthy as the directory it is read from, hence only the classes of rules,
+ * <code>java.lang</code> and <code>java.util</code> are deserialized from it.
+ */
+public class CrySLRuleBundle {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CrySLRuleBundle.class);
+
+	public static final String BUNDLE_FILE_ENDING = ".cryslbin";
+
+	/**
+	 * The version of the bundle format, to be increased whenever the serialized form of the rules changes.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	public static void main(String... args) {
+		if (args.length != 1) {
+			LOGGER.error("Usage: crypto.rules.CrySLRuleBundle <path_to_ruleset_zip>");
+			return;
+		}
+		File zip = new File(args[0]);
+		try {
+			List<CrySLRule> rules = CrySLRuleReader.readFromZipFile(zip, false);
+			File bundle = getBundleFile(zip);
+			write(bundle, computeContentHash(zip), rules);
+			LOGGER.info("Compiled {} rules of {} to {}", rules.size(), zip.getAbsolutePath(), bundle.getAbsolutePath());
+		} catch (CryptoAnalysisException e) {
+			LOGGER.error("Could not compile the ruleset " + zip.getAbsolutePath(), e);
+		}
+	}
+
+	/**
+	 * @param rulesetZip the ruleset ZIP file
+	 * @return the bundle file of the ruleset, next to the ZIP file
+	 */
+	public static File getBundleFile(File rulesetZip) {
+		String name = rulesetZip.getName();
+		if (name.endsWith(".zip")) {
+			name = name.substring(0, name.length() - ".zip".length());
+		}
+		return new File(rulesetZip.getAbsoluteFile().getParentFile(), name + BUNDLE_FILE_ENDING);
+	}
+
+	/**
+	 * @return the SHA-256 hash of the content of the file as hex string
+	 */
+	public static String computeContentHash(File file) throws CryptoAnalysisException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				messageDigest.update(buffer, 0, read);
+			}
+			return CrySLRuleReader.bytesToHex(messageDigest.digest());
+		} catch (IOException | NoSuchAlgorithmException e) {
+			throw new CryptoAnalysisException("Could not hash the file " + file.getAbsolutePath(), e);
+		}
+	}
+
+	/**
+	 * Writes the rules to a bundle.
+	 *
+	 * @param bundle the bundle file
+	 * @param contentHash the hash of the ruleset the rules were read from
+	 * @param rules the rules
+	 * @throws CryptoAnalysisException Throws when the bundle could not be written
+	 */
+	public static void write(File bundle, String contentHash, List<CrySLRule> rules) throws CryptoAnalysisException {
+		try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(bundle))))) {
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(contentHash);
+			out.writeObject(new ArrayList<>(rules));
+		} catch (IOException e) {
+			throw new CryptoAnalysisException("Could not write the rule bundle " + bundle.getAbsolutePath(), e);
+		}
+	}
+
+	/**
+	 * Reads the rules from a bundle.
+	 *
+	 * @param bundle the bundle file
+	 * @param contentHash the hash of the ruleset the bundle has to be compiled from
+	 * @return the rules, <code>null</code> if the bundle does not exist, is outdated or cannot be read
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<CrySLRule> read(File bundle, String contentHash) {
+		if (!bundle.isFile()) {
+			return null;
+		}
+		try (ObjectInputStream in = new RuleInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(bundle))))) {
+			if (in.readInt() != FORMAT_VERSION) {
+				LOGGER.info("Ignoring the rule bundle {}, it was created by another version", bundle.getAbsolutePath());
+				return null;
+			}
+			if (!in.readUTF().equals(contentHash)) {
+				LOGGER.info("Ignoring the rule bundle {}, the ruleset changed since it was created", bundle.getAbsolutePath());
+				return null;
+			}
+			return (List<CrySLRule>) in.readObject();
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			LOGGER.warn("Could not read the rule bundle " + bundle.getAbsolutePath(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Resolves only the classes a list of rules consists of and rejects all others.
+	 */
+	private static class RuleInputStream extends ObjectInputStream {
+
+		private RuleInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			if (!isAllowed(desc.getName())) {
+				throw new InvalidClassException(desc.getName(), "Not allowed in a rule bundle");
+			}
+			return super.resolveClass(desc);
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+			throw new InvalidClassException("Proxy classes are not allowed in a rule bundle");
+		}
+
+		private static boolean isAllowed(String className) {
+			// Arrays, e.g. [Ljava.lang.Object; or [I
+			String name = className;
+			while (name.startsWith("[")) {
+				name = name.substring(1);
+			}
+			if (name.length() == 1) {
+				return true;
+			}
+			if (name.startsWith("L") && name.endsWith(";")) {
+				name = name.substring(1, name.length() - 1);
+			}
+			return name.startsWith("crypto.rules.") || name.startsWith("java.util.") || name.startsWith("java.lang.");
+		}
+	}
+}
@@ -11,18 +11,36 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import crypto.cryslhandler.CrySLModelReader;
 import crypto.exceptions.CryptoAnalysisException;
 
 
 public class CrySLRuleReader {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CrySLRuleReader.class);
 	
 	private static CrySLModelReader csmr;
+
+	/**
+	 * The readers of the parser threads. A {@link CrySLModelReader} is not thread-safe, hence each
+	 * parser thread parses with its own reader and resource set. The parser threads only live for a
+	 * single read, so are their readers.
+	 */
+	private static final ThreadLocal<CrySLModelReader> parserReaders = new ThreadLocal<>();
 	
-	private static CrySLModelReader getReader(){
+	private static synchronized CrySLModelReader getReader(){
 		if (csmr == null)
 		{
 			try {
@@ -35,6 +53,54 @@ public class CrySLRuleReader {
 		return csmr;
 	}
 
+	private static CrySLModelReader getParserReader() throws CryptoAnalysisException {
+		CrySLModelReader reader = parserReaders.get();
+		if (reader == null) {
+			// Creating a reader registers the CrySL language in the global EMF registries, which is not thread-safe
+			synchronized (CrySLRuleReader.class) {
+				try {
+					reader = new CrySLModelReader();
+				} catch (MalformedURLException e) {
+					throw new CryptoAnalysisException("Could not create a CrySL reader", e);
+				}
+			}
+			parserReaders.set(reader);
+		}
+		return reader;
+	}
+
+	private static ExecutorService createParserPool(int numberOfThreads) {
+		AtomicInteger threadCount = new AtomicInteger();
+		return Executors.newFixedThreadPool(numberOfThreads, r -> {
+			Thread thread = new Thread(r, "CrySL-parser-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Waits until the tasks already running on the pool finished, the tasks not started yet are dropped.
+	 */
+	private static void shutdownAndAwait(ExecutorService pool) {
+		pool.shutdownNow();
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					if (pool.awaitTermination(1, TimeUnit.MINUTES)) {
+						return;
+					}
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
 	/**
 	 * Returns a {@link CrySLRule} read from a single CrySL file.
 	 * 
@@ -60,7 +126,7 @@ public class CrySLRuleReader {
 	/**
 	 * Returns a {@link List} of {@link CrySLRule} objects read from a directory.
 	 * In the case the directory contains further sub directories, they can also searched 
-	 * if the recursive argument is <code>true</code>.
+	 * if the recursive argument is <code>true</code>. The files are parsed in parallel.
 	 * 
 	 * @param directory the {@link File} with the directory where the rules are located
 	 * @param recursive <code>true</code> the subfolders will be searched too
@@ -68,60 +134,160 @@ public class CrySLRuleReader {
 	 * @throws CryptoAnalysisException Throws when a file could not get processed to a {@link CrySLRule}
 	 */
 	public static List<CrySLRule> readFromDirectory(File directory, boolean recursive) throws CryptoAnalysisException {
-		Map<String, CrySLRule> ruleMap = new HashMap<String, CrySLRule>();
+		return readFromDirectory(directory, recursive, Runtime.getRuntime().availableProcessors());
+	}
 
+	/**
+	 * Returns a {@link List} of {@link CrySLRule} objects read from a directory, as {@link #readFromDirectory(File, boolean)}
+	 * does, with the given number of parser threads.
+	 * 
+	 * @param directory the {@link File} with the directory where the rules are located
+	 * @param recursive <code>true</code> the subfolders will be searched too
+	 * @param numberOfThreads the number of threads parsing the files, 1 parses them on the calling thread
+	 * @return the {@link List} with {@link CrySLRule} objects. If no rules are found it returns an empty list.
+	 * @throws CryptoAnalysisException Throws when a file could not get processed to a {@link CrySLRule}
+	 */
+	public static List<CrySLRule> readFromDirectory(File directory, boolean recursive, int numberOfThreads) throws CryptoAnalysisException {
 		if (!directory.exists() || !directory.isDirectory())
 			throw new CryptoAnalysisException("The specified path is not a directory " + directory.getAbsolutePath());
 
 		List<File> cryptSLFiles = new ArrayList<>();
 		findCryptSLFiles(directory, recursive, cryptSLFiles);
 
-		CrySLModelReader reader = getReader();
+		List<RuleSource> sources = new ArrayList<>();
 		for (File file : cryptSLFiles) {
-			CrySLRule rule = reader.readRule(file);
-
-			if(rule != null) {
-				if(!ruleMap.containsKey(rule.getClassName())) {
-					ruleMap.put(rule.getClassName(), rule);
-				}
-			}
+			sources.add(reader -> reader.readRule(file));
 		}
-		
-		return new ArrayList<>(ruleMap.values());
+		return readInParallel(sources, numberOfThreads);
 	}
 
 	/**
 	 * Returns a {@link List} of {@link CrySLRule} objects read from a Zip {@link File}.
+	 * If an up-to-date {@link CrySLRuleBundle} of the Zip file exists, the rules are read from it.
 	 * @param file Zip that contains the CrySL files
 	 * @return the {@link List} with {@link CrySLRule} objects. If no rules are found it returns an empty list.
 	 * @throws CryptoAnalysisException 
 	 */
 	public static List<CrySLRule> readFromZipFile(File file) throws CryptoAnalysisException {
+		return readFromZipFile(file, true);
+	}
+
+	/**
+	 * Returns a {@link List} of {@link CrySLRule} objects read from a Zip {@link File}. The entries are parsed in parallel.
+	 * @param file Zip that contains the CrySL files
+	 * @param useBundle <code>true</code> to read the rules from the {@link CrySLRuleBundle} of the Zip file if it is up to date
+	 * @return the {@link List} with {@link CrySLRule} objects. If no rules are found it returns an empty list.
+	 * @throws CryptoAnalysisException 
+	 */
+	public static List<CrySLRule> readFromZipFile(File file, boolean useBundle) throws CryptoAnalysisException {
+		return readFromZipFile(file, useBundle, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Returns a {@link List} of {@link CrySLRule} objects read from a Zip {@link File}, as {@link #readFromZipFile(File, boolean)}
+	 * does, with the given number of parser threads.
+	 * @param file Zip that contains the CrySL files
+	 * @param useBundle <code>true</code> to read the rules from the {@link CrySLRuleBundle} of the Zip file if it is up to date
+	 * @param numberOfThreads the number of threads parsing the entries, 1 parses them on the calling thread
+	 * @return the {@link List} with {@link CrySLRule} objects. If no rules are found it returns an empty list.
+	 * @throws CryptoAnalysisException 
+	 */
+	public static List<CrySLRule> readFromZipFile(File file, boolean useBundle, int numberOfThreads) throws CryptoAnalysisException {
 		if (!file.exists() || !file.isFile() || !file.getName().endsWith(".zip"))
 			throw new CryptoAnalysisException("The specified path is not a ZIP file " + file.getAbsolutePath());
 
-		Map<String, CrySLRule> ruleMap = new HashMap<String, CrySLRule>();
-		try {
-			ZipFile zip = new ZipFile(file);
+		File bundle = CrySLRuleBundle.getBundleFile(file);
+		if (useBundle && bundle.isFile()) {
+			try {
+				List<CrySLRule> bundledRules = CrySLRuleBundle.read(bundle, CrySLRuleBundle.computeContentHash(file));
+				if (bundledRules != null) {
+					return bundledRules;
+				}
+			} catch (CryptoAnalysisException e) {
+				LOGGER.warn("Ignoring the rule bundle " + bundle.getAbsolutePath(), e);
+			}
+		}
+
+		try (ZipFile zip = new ZipFile(file)) {
+			List<RuleSource> sources = new ArrayList<>();
 			for (Enumeration e = zip.entries(); e.hasMoreElements(); ) {
 				ZipEntry entry = (ZipEntry) e.nextElement();
 				if (!entry.isDirectory()) {
-					CrySLRule rule = getCrySLRuleFromZipEntry(entry, zip, file);
-					if(rule != null) {
-						if(!ruleMap.containsKey(rule.getClassName())) {
-							ruleMap.put(rule.getClassName(), rule);
-						}
-					}
+					sources.add(reader -> getCrySLRuleFromZipEntry(entry, zip, file, reader));
 				} 
 			}
+			return readInParallel(sources, numberOfThreads);
 		}
 		catch (IOException e) {
 			throw new CryptoAnalysisException(e.getMessage());
 		}
-		
-		return new ArrayList<>(ruleMap.values());
 	}	
 
+	/**
+	 * Reads the rules on parser threads that only live for this read. The rules are collected in the
+	 * order of the sources, such that the first rule of a class wins and the first failing source
+	 * throws, as if the sources were read one after another. All parser threads have finished when
+	 * this method returns, also if a source failed.
+	 */
+	private static List<CrySLRule> readInParallel(List<RuleSource> sources, int numberOfThreads) throws CryptoAnalysisException {
+		Map<String, CrySLRule> ruleMap = new HashMap<String, CrySLRule>();
+		if (numberOfThreads <= 1) {
+			for (RuleSource source : sources) {
+				CrySLRule rule = source.read(getReader());
+				if(rule != null) {
+					if(!ruleMap.containsKey(rule.getClassName())) {
+						ruleMap.put(rule.getClassName(), rule);
+					}
+				}
+			}
+			return new ArrayList<>(ruleMap.values());
+		}
+
+		ExecutorService pool = createParserPool(Math.max(1, Math.min(sources.size(), numberOfThreads)));
+		try {
+			List<Future<CrySLRule>> futures = new ArrayList<>(sources.size());
+			for (RuleSource source : sources) {
+				futures.add(pool.submit(() -> source.read(getParserReader())));
+			}
+			for (Future<CrySLRule> future : futures) {
+				CrySLRule rule = getResult(future);
+				if(rule != null) {
+					if(!ruleMap.containsKey(rule.getClassName())) {
+						ruleMap.put(rule.getClassName(), rule);
+					}
+				}
+			}
+		} finally {
+			shutdownAndAwait(pool);
+		}
+		return new ArrayList<>(ruleMap.values());
+	}
+
+	private static CrySLRule getResult(Future<CrySLRule> future) throws CryptoAnalysisException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CryptoAnalysisException("Interrupted while reading the CrySL rules", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof CryptoAnalysisException) {
+				throw (CryptoAnalysisException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new CryptoAnalysisException("Could not read a CrySL rule", cause);
+		}
+	}
+
+	private interface RuleSource {
+		CrySLRule read(CrySLModelReader reader) throws CryptoAnalysisException;
+	}
+
 	private static void findCryptSLFiles(File directory, boolean recursive, Collection<File> resultCollection) {
 		for (File file: directory.listFiles())
 		{
@@ -133,7 +299,7 @@ public class CrySLRuleReader {
 		}
 	}
 
-	private static CrySLRule getCrySLRuleFromZipEntry(ZipEntry entry, ZipFile zip, File zipFile) throws CryptoAnalysisException
+	private static CrySLRule getCrySLRuleFromZipEntry(ZipEntry entry, ZipFile zip, File zipFile, CrySLModelReader reader) throws CryptoAnalysisException
 	{
 		if (entry.isDirectory() || !entry.getName().endsWith(CrySLModelReader.cryslFileEnding))
 			throw new CryptoAnalysisException("ZIP entry is a directory or not a CrySL file");
@@ -141,7 +307,7 @@ public class CrySLRuleReader {
 		CrySLRule rule = null;
 		try {
 			String name = createUniqueZipEntryName(zipFile, entry);
-			rule = getReader().readRule(zip.getInputStream(entry), name);
+			rule = reader.readRule(zip.getInputStream(entry), name);
 		}
 		catch (IllegalArgumentException | IOException | NoSuchAlgorithmException ex) {
 			ex.printStackTrace();
@@ -176,7 +342,7 @@ public class CrySLRuleReader {
 		return sb.toString();
 	}
 
-	private static String bytesToHex(byte[] bytes) {
+	static String bytesToHex(byte[] bytes) {
 		StringBuilder sb = new StringBuilder();
 		for (byte b : bytes)
 			sb.append(String.format("%02x", b));
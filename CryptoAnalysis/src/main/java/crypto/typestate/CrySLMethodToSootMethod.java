@@ -44,11 +44,11 @@ public class CrySLMethodToSootMethod {
 	};
 	private Multimap<SootMethod, CrySLMethod> sootMethodToDescriptor = HashMultimap.create();
 
-	public Collection<CrySLMethod> convert(SootMethod m) {
+	public synchronized Collection<CrySLMethod> convert(SootMethod m) {
 		return sootMethodToDescriptor.get(m);
 	}
 
-	public Collection<SootMethod> convert(CrySLMethod label) {
+	public synchronized Collection<SootMethod> convert(CrySLMethod label) {
 		return descriptorToSootMethod.getOrCreate(label);
 	}
 
@@ -126,7 +126,7 @@ public class CrySLMethodToSootMethod {
 		return desc.substring(desc.lastIndexOf(".") + 1);
 	}
 
-	public Collection<SootMethod> convert(List<CrySLMethod> list) {
+	public synchronized Collection<SootMethod> convert(List<CrySLMethod> list) {
 		Set<SootMethod> res = Sets.newHashSet();
 		for (CrySLMethod l : list)
 			res.addAll(convert(l));
@@ -143,13 +143,13 @@ public class CrySLMethodToSootMethod {
 		return label.substring(0, label.lastIndexOf("."));
 	}
 
-	public static CrySLMethodToSootMethod v() {
+	public static synchronized CrySLMethodToSootMethod v() {
 		if (instance == null)
 			instance = new CrySLMethodToSootMethod();
 		return instance;
 	}
 
-	public static void reset() {
+	public static synchronized void reset() {
 		instance = null;
 	}
 }
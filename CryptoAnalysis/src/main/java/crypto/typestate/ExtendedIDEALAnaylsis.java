@@ -4,7 +4,9 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.Maps;
 
 import boomerang.BoomerangOptions;
@@ -19,6 +21,11 @@ import boomerang.results.ForwardBoomerangResults;
 import crypto.analysis.CrySLResultsReporter;
 import crypto.analysis.IAnalysisSeed;
 import crypto.boomerang.CogniCryptBoomerangOptions;
+import crypto.boomerang.FixedTimeoutPolicy;
+import crypto.boomerang.QueryKind;
+import crypto.boomerang.QueryTimeout;
+import crypto.boomerang.TimeoutPolicy;
+import crypto.rules.CrySLRule;
 import ideal.IDEALAnalysis;
 import ideal.IDEALAnalysisDefinition;
 import ideal.IDEALSeedSolver;
@@ -38,6 +45,7 @@ public abstract class ExtendedIDEALAnaylsis {
 	private final IDEALAnalysis<TransitionFunction> analysis;
 	private ForwardBoomerangResults<TransitionFunction> results;
 	private HashSet seeds;
+	private QueryTimeout timeout;
 	
 	public ExtendedIDEALAnaylsis(){
 		analysis = new IDEALAnalysis<TransitionFunction>(new IDEALAnalysisDefinition<TransitionFunction>() {
@@ -67,12 +75,12 @@ public abstract class ExtendedIDEALAnaylsis {
 			}
 			@Override
 			public BoomerangOptions boomerangOptions() {
-				return new CogniCryptBoomerangOptions();
+				return new CogniCryptBoomerangOptions(timeout.getTimeoutInMillis());
 			}
 		});
 	}
 
-	private FiniteStateMachineToTypestateChangeFunction getOrCreateTypestateChangeFunction() {
+	private synchronized FiniteStateMachineToTypestateChangeFunction getOrCreateTypestateChangeFunction() {
 		if (this.changeFunction == null)
 			this.changeFunction = new FiniteStateMachineToTypestateChangeFunction(getStateMachine());
 		return this.changeFunction;
@@ -82,15 +90,42 @@ public abstract class ExtendedIDEALAnaylsis {
 
 	public void run(ForwardQuery query) {
 		CrySLResultsReporter reports = analysisListener();
+		TimeoutPolicy timeoutPolicy = timeoutPolicy();
+		timeout = timeoutPolicy.getTimeout(getRule(), QueryKind.TYPESTATE);
+		if (reports != null && query instanceof IAnalysisSeed) {
+			reports.beforeTypestateAnalysis((IAnalysisSeed) query);
+		}
+		Stopwatch watch = Stopwatch.createStarted();
+		boolean timedOut = false;
 		try {
 			results = analysis.run(query);
 		} catch (IDEALSeedTimeout e){
+			timedOut = true;
+			if (reports != null && query instanceof IAnalysisSeed) {
+				reports.onSeedTimeout(((IAnalysisSeed)query).asNode(), timeout);
+			}
+		} finally {
+			timeoutPolicy.queryFinished(timeout, watch.elapsed(TimeUnit.MILLISECONDS), timedOut);
 			if (reports != null && query instanceof IAnalysisSeed) {
-				reports.onSeedTimeout(((IAnalysisSeed)query).asNode());
+				reports.afterTypestateAnalysis((IAnalysisSeed) query);
 			}
 		}
 	}
 
+	/**
+	 * @return the policy deciding the timeout of the typestate analysis
+	 */
+	protected TimeoutPolicy timeoutPolicy() {
+		return new FixedTimeoutPolicy();
+	}
+
+	/**
+	 * @return the rule the analyzed seed belongs to, <code>null</code> if there is none
+	 */
+	protected CrySLRule getRule() {
+		return null;
+	}
+
 
 	protected abstract ObservableICFG<Unit, SootMethod> icfg();
 	protected abstract Debugger<TransitionFunction> debugger(IDEALSeedSolver<TransitionFunction> solver);
@@ -101,14 +136,8 @@ public abstract class ExtendedIDEALAnaylsis {
 
 	public abstract CrySLResultsReporter analysisListener();
 
-    public Collection<WeightedForwardQuery<TransitionFunction>> computeSeeds(SootMethod method) {
-    	Collection<WeightedForwardQuery<TransitionFunction>> seeds = new HashSet<>();
-        if (!method.hasActiveBody())
-            return seeds;
-        for (Unit u : method.getActiveBody().getUnits()) {
-            seeds.addAll( getOrCreateTypestateChangeFunction().generateSeed(method, u));
-        }
-        return seeds;
+    public Collection<WeightedForwardQuery<TransitionFunction>> computeSeeds(SootMethod method, Unit unit, SootMethod callee) {
+        return getOrCreateTypestateChangeFunction().generateSeed(method, unit, callee);
     }
 
 
@@ -121,8 +150,13 @@ public abstract class ExtendedIDEALAnaylsis {
 		ReachableMethods rm = Scene.v().getReachableMethods();
 		QueueReader<MethodOrMethodContext> listener = rm.listener();
 		while (listener.hasNext()) {
-			MethodOrMethodContext next = listener.next();
-			seeds.addAll(computeSeeds(next.method()));
+			SootMethod method = listener.next().method();
+			if (!method.hasActiveBody()) {
+				continue;
+			}
+			for (Unit u : method.getActiveBody().getUnits()) {
+				seeds.addAll(getOrCreateTypestateChangeFunction().generateSeed(method, u));
+			}
 		}
 		Map<WeightedForwardQuery<TransitionFunction>, ForwardBoomerangResults<TransitionFunction>> seedToSolver = Maps.newHashMap();
 		for (Query s : seeds) {
@@ -52,11 +52,25 @@ public class FiniteStateMachineToTypestateChangeFunction extends TypeStateMachin
 
 	@Override
 	public Collection<WeightedForwardQuery<TransitionFunction>> generateSeed(SootMethod method, Unit unit) {
+		Set<WeightedForwardQuery<TransitionFunction>> out = new HashSet<>();
+		if (!(unit instanceof Stmt) || !((Stmt) unit).containsInvokeExpr())
+			return out;
+		return generateSeed(method, unit, ((Stmt) unit).getInvokeExpr().getMethod());
+	}
+
+	/**
+	 * Same as {@link #generateSeed(SootMethod, Unit)} for a call site whose callee is already resolved.
+	 * 
+	 * @param method the method containing the call site
+	 * @param unit the call site
+	 * @param calledMethod the resolved callee of the call site
+	 * @return the seeds created at the call site
+	 */
+	public Collection<WeightedForwardQuery<TransitionFunction>> generateSeed(SootMethod method, Unit unit, SootMethod calledMethod) {
 		Set<WeightedForwardQuery<TransitionFunction>> out = new HashSet<>();
 		if (!(unit instanceof Stmt) || !((Stmt) unit).containsInvokeExpr())
 			return out;
 		InvokeExpr invokeExpr = ((Stmt) unit).getInvokeExpr();
-		SootMethod calledMethod = invokeExpr.getMethod();
 		if (!fsm.initialTransitonLabel().contains(calledMethod))
 			return out;
 		if (calledMethod.isStatic()) {
@@ -0,0 +1,23 @@
+package crypto.reporting.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Fields common to all events of the analysis. The rule and the seed statement are empty for
+ * events that do not belong to a single seed.
+ */
+abstract class AnalysisEvent extends Event {
+
+	@Label("Rule")
+	String rule;
+
+	@Label("Seed Statement")
+	String seedStatement;
+
+	@Label("Outcome")
+	String outcome;
+
+	@Label("Errors")
+	int errors;
+}
@@ -0,0 +1,19 @@
+package crypto.reporting.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("crypto.BoomerangQuery")
+@Label("Boomerang Query")
+@Category("CryptoAnalysis")
+@Description("Backward query extracting the values of a parameter of a seed")
+public class BoomerangQueryEvent extends AnalysisEvent {
+
+	@Label("Query Statement")
+	String queryStatement;
+
+	@Label("Query Variable")
+	String queryVariable;
+}
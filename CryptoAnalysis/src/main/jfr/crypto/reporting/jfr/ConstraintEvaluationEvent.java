@@ -0,0 +1,13 @@
+package crypto.reporting.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("crypto.ConstraintEvaluation")
+@Label("Constraint Evaluation")
+@Category("CryptoAnalysis")
+@Description("Evaluation of the constraints of a rule on the values extracted for a seed")
+public class ConstraintEvaluationEvent extends AnalysisEvent {
+}
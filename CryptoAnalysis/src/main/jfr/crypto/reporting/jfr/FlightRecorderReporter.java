@@ -0,0 +1,263 @@
+package crypto.reporting.jfr;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Table;
+
+import boomerang.BackwardQuery;
+import boomerang.Query;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.results.ForwardBoomerangResults;
+import crypto.analysis.AnalysisSeedWithSpecification;
+import crypto.analysis.CrySLAnalysisListener;
+import crypto.analysis.EnsuredCrySLPredicate;
+import crypto.analysis.IAnalysisSeed;
+import crypto.analysis.errors.AbstractError;
+import crypto.boomerang.QueryKind;
+import crypto.boomerang.QueryTimeout;
+import crypto.extractparameter.CallSiteWithParamIndex;
+import crypto.extractparameter.ExtractedValue;
+import crypto.interfaces.ISLConstraint;
+import crypto.rules.CrySLPredicate;
+import sync.pds.solver.nodes.Node;
+import typestate.TransitionFunction;
+
+/**
+ * Emits Java Flight Recorder events for the analysis of seeds, the Boomerang queries of the value
+ * extraction, the constraint evaluation and the predicate checks. The events carry the rule, the
+ * seed statement, the outcome and the number of reported errors, such that slow seeds can be
+ * correlated with garbage collection and allocation in a recording.
+ *
+ * The events are only recorded when the JVM runs with Flight Recorder. Otherwise, they are
+ * dropped before their fields are filled, such that no statement is rendered to a string. Each phase runs on a single thread, hence events in progress are
+ * tracked per thread. Only the queries of a seed may run on other threads than the seed itself.
+ *
+ * The event classes require the jdk.jfr module, i.e. Java 11 or a Java 8 update with Flight
+ * Recorder. Check for the class jdk.jfr.Event before creating this reporter.
+ */
+public class FlightRecorderReporter extends CrySLAnalysisListener {
+
+	private static final String FINISHED = "finished";
+	private static final String TIMEOUT = "timeout";
+	private static final String SATISFIED = "satisfied";
+	private static final String VIOLATED = "violated";
+	private static final String ENSURED_PREDICATE_SEED = "ensuredPredicate";
+
+	private final Map<IAnalysisSeed, SeedAnalysisEvent> seeds = Maps.newHashMap();
+	private final Map<Thread, IAnalysisSeed> runningSeeds = Maps.newHashMap();
+	private final Map<Thread, BoomerangQueryEvent> queries = Maps.newHashMap();
+	private final Map<Thread, IAnalysisSeed> queriedSeeds = Maps.newHashMap();
+	private final Map<Thread, ConstraintEvaluationEvent> constraints = Maps.newHashMap();
+	private final Map<Thread, PredicateCheckEvent> predicates = Maps.newHashMap();
+
+	@Override
+	public void seedStarted(IAnalysisSeed seed) {
+		SeedAnalysisEvent event = new SeedAnalysisEvent();
+		if (!event.isEnabled()) {
+			return;
+		}
+		describe(event, seed);
+		event.method = seed.getMethod().getSignature();
+		event.outcome = FINISHED;
+		event.begin();
+		seeds.put(seed, event);
+		runningSeeds.put(Thread.currentThread(), seed);
+	}
+
+	@Override
+	public void onSeedFinished(IAnalysisSeed seed, ForwardBoomerangResults<TransitionFunction> analysisResults) {
+		commitSeed(seed);
+	}
+
+	private void commitSeed(IAnalysisSeed seed) {
+		runningSeeds.values().remove(seed);
+		SeedAnalysisEvent event = seeds.remove(seed);
+		if (event != null) {
+			event.commit();
+		}
+	}
+
+	@Override
+	public void onSeedTimeout(Node<Statement, Val> seed) {
+	}
+
+	@Override
+	public void onSeedTimeout(Node<Statement, Val> seed, QueryTimeout timeout) {
+		if (timeout.getKind() == QueryKind.TYPESTATE) {
+			SeedAnalysisEvent event = seeds.get(runningSeeds.get(Thread.currentThread()));
+			if (event != null) {
+				event.outcome = TIMEOUT;
+			}
+		} else if (timeout.getKind() == QueryKind.VALUE_EXTRACTION) {
+			BoomerangQueryEvent query = queries.get(Thread.currentThread());
+			if (query != null) {
+				query.outcome = TIMEOUT;
+			}
+			SeedAnalysisEvent event = seeds.get(queriedSeeds.get(Thread.currentThread()));
+			if (event != null) {
+				event.extractionTimeouts++;
+			}
+		}
+	}
+
+	@Override
+	public void afterTypestateAnalysis(IAnalysisSeed seed) {
+		SeedAnalysisEvent event = seeds.get(seed);
+		if (event != null && event.outcome == TIMEOUT && seed instanceof AnalysisSeedWithSpecification) {
+			// The analysis of the seed stops without finishing after a timeout of the typestate analysis
+			commitSeed(seed);
+		}
+	}
+
+	@Override
+	public void boomerangQueryStarted(Query seed, BackwardQuery q) {
+		if (seed instanceof IAnalysisSeed) {
+			// Tracked also without query events, to count the extraction timeouts of the seed event
+			queriedSeeds.put(Thread.currentThread(), (IAnalysisSeed) seed);
+		}
+		BoomerangQueryEvent event = new BoomerangQueryEvent();
+		if (!event.isEnabled()) {
+			return;
+		}
+		if (seed instanceof IAnalysisSeed) {
+			describe(event, (IAnalysisSeed) seed);
+		}
+		event.queryStatement = q.stmt().toString();
+		event.queryVariable = q.var().toString();
+		event.outcome = FINISHED;
+		event.begin();
+		queries.put(Thread.currentThread(), event);
+	}
+
+	@Override
+	public void boomerangQueryFinished(Query seed, BackwardQuery q) {
+		queriedSeeds.remove(Thread.currentThread());
+		BoomerangQueryEvent event = queries.remove(Thread.currentThread());
+		if (event != null) {
+			event.commit();
+		}
+	}
+
+	@Override
+	public void beforeConstraintCheck(AnalysisSeedWithSpecification seed) {
+		ConstraintEvaluationEvent event = new ConstraintEvaluationEvent();
+		if (!event.isEnabled()) {
+			return;
+		}
+		describe(event, seed);
+		event.begin();
+		constraints.put(Thread.currentThread(), event);
+	}
+
+	@Override
+	public void afterConstraintCheck(AnalysisSeedWithSpecification seed) {
+		ConstraintEvaluationEvent event = constraints.remove(Thread.currentThread());
+		if (event != null) {
+			event.outcome = event.errors == 0 ? SATISFIED : VIOLATED;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void beforePredicateCheck(AnalysisSeedWithSpecification seed) {
+		PredicateCheckEvent event = new PredicateCheckEvent();
+		if (!event.isEnabled()) {
+			return;
+		}
+		describe(event, seed);
+		event.begin();
+		predicates.put(Thread.currentThread(), event);
+	}
+
+	@Override
+	public void afterPredicateCheck(AnalysisSeedWithSpecification seed) {
+		commitPredicateCheck();
+	}
+
+	@Override
+	public void beforeFinalPredicateCheck() {
+		PredicateCheckEvent event = new PredicateCheckEvent();
+		if (!event.isEnabled()) {
+			return;
+		}
+		event.begin();
+		predicates.put(Thread.currentThread(), event);
+	}
+
+	@Override
+	public void afterFinalPredicateCheck() {
+		commitPredicateCheck();
+	}
+
+	private void commitPredicateCheck() {
+		PredicateCheckEvent event = predicates.remove(Thread.currentThread());
+		if (event != null) {
+			event.outcome = event.errors == 0 ? SATISFIED : VIOLATED;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void reportError(AbstractError error) {
+		Thread thread = Thread.currentThread();
+		SeedAnalysisEvent seed = seeds.get(runningSeeds.get(thread));
+		if (seed != null) {
+			seed.errors++;
+		}
+		ConstraintEvaluationEvent constraint = constraints.get(thread);
+		if (constraint != null) {
+			constraint.errors++;
+		}
+		PredicateCheckEvent predicate = predicates.get(thread);
+		if (predicate != null) {
+			predicate.errors++;
+		}
+	}
+
+	private static void describe(AnalysisEvent event, IAnalysisSeed seed) {
+		if (seed instanceof AnalysisSeedWithSpecification) {
+			event.rule = ((AnalysisSeedWithSpecification) seed).getSpec().getRule().getClassName();
+		} else {
+			event.rule = ENSURED_PREDICATE_SEED;
+		}
+		event.seedStatement = seed.stmt().toString();
+	}
+
+	@Override
+	public void beforeAnalysis() {
+	}
+
+	@Override
+	public void afterAnalysis() {
+	}
+
+	@Override
+	public void ensuredPredicates(Table<Statement, Val, Set<EnsuredCrySLPredicate>> existingPredicates, Table<Statement, IAnalysisSeed, Set<CrySLPredicate>> expectedPredicates,
+			Table<Statement, IAnalysisSeed, Set<CrySLPredicate>> missingPredicates) {
+	}
+
+	@Override
+	public void checkedConstraints(AnalysisSeedWithSpecification analysisSeedWithSpecification, Collection<ISLConstraint> relConstraints) {
+	}
+
+	@Override
+	public void collectedValues(AnalysisSeedWithSpecification seed, Multimap<CallSiteWithParamIndex, ExtractedValue> collectedValues) {
+	}
+
+	@Override
+	public void discoveredSeed(IAnalysisSeed curr) {
+	}
+
+	@Override
+	public void onSecureObjectFound(IAnalysisSeed analysisObject) {
+	}
+
+	@Override
+	public void addProgress(int processedSeeds, int workListsize) {
+	}
+}
@@ -0,0 +1,13 @@
+package crypto.reporting.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("crypto.PredicateCheck")
+@Label("Predicate Check")
+@Category("CryptoAnalysis")
+@Description("Check of the required predicates, either of a single seed or of all seeds at the end of the analysis")
+public class PredicateCheckEvent extends AnalysisEvent {
+}
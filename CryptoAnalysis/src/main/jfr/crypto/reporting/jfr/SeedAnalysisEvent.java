@@ -0,0 +1,20 @@
+package crypto.reporting.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("crypto.SeedAnalysis")
+@Label("Seed Analysis")
+@Category("CryptoAnalysis")
+@Description("Analysis of an object: typestate analysis, value extraction and constraint checks")
+public class SeedAnalysisEvent extends AnalysisEvent {
+
+	@Label("Method")
+	String method;
+
+	@Label("Extraction Timeouts")
+	@Description("Number of value extraction queries of the seed that timed out")
+	int extractionTimeouts;
+}
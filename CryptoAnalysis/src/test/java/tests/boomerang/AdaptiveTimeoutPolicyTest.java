@@ -0,0 +1,115 @@
+package tests.boomerang;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import boomerang.callgraph.ObservableICFG;
+import crypto.analysis.CryptoScanner;
+import crypto.boomerang.AdaptiveTimeoutPolicy;
+import crypto.boomerang.FixedTimeoutPolicy;
+import crypto.boomerang.QueryKind;
+import crypto.boomerang.QueryTimeout;
+import crypto.rules.CrySLRule;
+import soot.SootMethod;
+import soot.Unit;
+
+public class AdaptiveTimeoutPolicyTest {
+
+	private static final CrySLRule CIPHER = FixedTimeoutPolicyTest.rule("javax.crypto.Cipher");
+
+	private final BudgetScanner scanner = new BudgetScanner();
+
+	@Test
+	public void configuredTimeoutAppliesUntilEnoughQueriesFinished() {
+		AdaptiveTimeoutPolicy policy = new AdaptiveTimeoutPolicy(new FixedTimeoutPolicy(5000), scanner);
+		finishQueries(policy, 19, 1000, false);
+		Assert.assertEquals(5000, timeout(policy));
+		finishQueries(policy, 1, 1000, false);
+		Assert.assertEquals(3000, timeout(policy));
+		// Other kinds of queries are not affected
+		Assert.assertEquals(5000, policy.getTimeout(CIPHER, QueryKind.VALUE_EXTRACTION).getTimeoutInMillis());
+	}
+
+	@Test
+	public void percentileIsRecomputedAfterSeveralQueries() {
+		AdaptiveTimeoutPolicy policy = new AdaptiveTimeoutPolicy(new FixedTimeoutPolicy(5000), scanner);
+		finishQueries(policy, 20, 1000, false);
+		finishQueries(policy, 9, 2000, false);
+		Assert.assertEquals(3000, timeout(policy));
+		finishQueries(policy, 1, 2000, false);
+		Assert.assertEquals(6000, timeout(policy));
+	}
+
+	@Test
+	public void timedOutQueriesDoNotRaiseTheTimeoutBeyondTheCap() {
+		AdaptiveTimeoutPolicy policy = new AdaptiveTimeoutPolicy(new FixedTimeoutPolicy(1000), scanner);
+		for (int round = 0; round < 5; round++) {
+			QueryTimeout timeout = policy.getTimeout(CIPHER, QueryKind.TYPESTATE);
+			finishQueries(policy, timeout, 20, 0, true);
+		}
+		Assert.assertEquals(4000, timeout(policy));
+	}
+
+	@Test
+	public void ruleTimeoutIsAnUpperBound() {
+		FixedTimeoutPolicy configured = new FixedTimeoutPolicy(5000);
+		configured.setTimeout("javax.crypto.Cipher", 2000);
+		AdaptiveTimeoutPolicy policy = new AdaptiveTimeoutPolicy(configured, scanner);
+		finishQueries(policy, 20, 1000, false);
+		Assert.assertEquals(2000, timeout(policy));
+		Assert.assertEquals(3000, policy.getTimeout(null, QueryKind.TYPESTATE).getTimeoutInMillis());
+	}
+
+	@Test
+	public void timeoutIsLimitedToTheShareOfTheRemainingBudget() {
+		AdaptiveTimeoutPolicy policy = new AdaptiveTimeoutPolicy(new FixedTimeoutPolicy(20000), scanner);
+		scanner.remainingBudget = 10000;
+		scanner.remainingSeeds = 8;
+		Assert.assertEquals(5000, timeout(policy));
+		scanner.threads = 2;
+		Assert.assertEquals(10000, timeout(policy));
+		scanner.remainingBudget = 100;
+		Assert.assertEquals(100, timeout(policy));
+	}
+
+	private static int timeout(AdaptiveTimeoutPolicy policy) {
+		return policy.getTimeout(CIPHER, QueryKind.TYPESTATE).getTimeoutInMillis();
+	}
+
+	private static void finishQueries(AdaptiveTimeoutPolicy policy, int queries, long elapsedMillis, boolean timedOut) {
+		finishQueries(policy, new QueryTimeout(CIPHER, QueryKind.TYPESTATE, 5000, "test"), queries, elapsedMillis, timedOut);
+	}
+
+	private static void finishQueries(AdaptiveTimeoutPolicy policy, QueryTimeout timeout, int queries, long elapsedMillis, boolean timedOut) {
+		for (int i = 0; i < queries; i++) {
+			policy.queryFinished(timeout, elapsedMillis, timedOut);
+		}
+	}
+
+	private static class BudgetScanner extends CryptoScanner {
+
+		private long remainingBudget = -1;
+		private int remainingSeeds;
+		private int threads = 1;
+
+		@Override
+		public ObservableICFG<Unit, SootMethod> icfg() {
+			return null;
+		}
+
+		@Override
+		public long getRemainingTimeBudget() {
+			return remainingBudget;
+		}
+
+		@Override
+		public int getRemainingSeeds() {
+			return remainingSeeds;
+		}
+
+		@Override
+		public int numberOfThreads() {
+			return threads;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package tests.boomerang;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import crypto.boomerang.FixedTimeoutPolicy;
+import crypto.boomerang.QueryKind;
+import crypto.exceptions.CryptoAnalysisException;
+import crypto.rules.CrySLRule;
+import crypto.rules.StateMachineGraph;
+
+public class FixedTimeoutPolicyTest {
+
+	private static final CrySLRule CIPHER = rule("javax.crypto.Cipher");
+	private static final CrySLRule MAC = rule("javax.crypto.Mac");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void mostSpecificTimeoutApplies() {
+		FixedTimeoutPolicy policy = new FixedTimeoutPolicy(1000);
+		Assert.assertEquals(1000, policy.getTimeout(CIPHER, QueryKind.TYPESTATE).getTimeoutInMillis());
+
+		policy.setTimeout(QueryKind.TYPESTATE, 2000);
+		Assert.assertEquals(2000, policy.getTimeout(CIPHER, QueryKind.TYPESTATE).getTimeoutInMillis());
+		Assert.assertEquals(1000, policy.getTimeout(CIPHER, QueryKind.VALUE_EXTRACTION).getTimeoutInMillis());
+
+		policy.setTimeout("javax.crypto.Cipher", 3000);
+		Assert.assertEquals(3000, policy.getTimeout(CIPHER, QueryKind.TYPESTATE).getTimeoutInMillis());
+		Assert.assertEquals(3000, policy.getTimeout(CIPHER, QueryKind.VALUE_EXTRACTION).getTimeoutInMillis());
+		Assert.assertEquals(2000, policy.getTimeout(MAC, QueryKind.TYPESTATE).getTimeoutInMillis());
+
+		policy.setTimeout("javax.crypto.Cipher", QueryKind.TYPESTATE, 4000);
+		Assert.assertEquals(4000, policy.getTimeout(CIPHER, QueryKind.TYPESTATE).getTimeoutInMillis());
+		Assert.assertEquals(3000, policy.getTimeout(CIPHER, QueryKind.VALUE_EXTRACTION).getTimeoutInMillis());
+	}
+
+	@Test
+	public void seedsWithoutRuleGetTheKindTimeout() {
+		FixedTimeoutPolicy policy = new FixedTimeoutPolicy();
+		policy.setTimeout("javax.crypto.Cipher", 3000);
+		Assert.assertEquals(FixedTimeoutPolicy.DEFAULT_TIMEOUT_MS, policy.getTimeout(null, QueryKind.TYPESTATE).getTimeoutInMillis());
+		Assert.assertNull(policy.getRuleTimeout(null, QueryKind.TYPESTATE));
+		Assert.assertNull(policy.getRuleTimeout(MAC, QueryKind.TYPESTATE));
+	}
+
+	@Test
+	public void readTimeouts() throws IOException, CryptoAnalysisException {
+		File file = folder.newFile("timeouts.properties");
+		Files.write(file.toPath(), Arrays.asList("extraction=2000", "javax.crypto.Cipher=3000", "javax.crypto.Cipher.typestate=4000"), StandardCharsets.UTF_8);
+		FixedTimeoutPolicy policy = new FixedTimeoutPolicy(1000);
+		policy.readTimeouts(file);
+
+		Assert.assertEquals(1000, policy.getTimeout(MAC, QueryKind.TYPESTATE).getTimeoutInMillis());
+		Assert.assertEquals(2000, policy.getTimeout(MAC, QueryKind.VALUE_EXTRACTION).getTimeoutInMillis());
+		Assert.assertEquals(3000, policy.getTimeout(CIPHER, QueryKind.VALUE_EXTRACTION).getTimeoutInMillis());
+		Assert.assertEquals(4000, policy.getTimeout(CIPHER, QueryKind.TYPESTATE).getTimeoutInMillis());
+	}
+
+	@Test(expected = CryptoAnalysisException.class)
+	public void invalidTimeoutIsRejected() throws IOException, CryptoAnalysisException {
+		File file = folder.newFile("timeouts.properties");
+		Files.write(file.toPath(), Collections.singletonList("typestate=0"), StandardCharsets.UTF_8);
+		new FixedTimeoutPolicy().readTimeouts(file);
+	}
+
+	static CrySLRule rule(String className) {
+		return new CrySLRule(className, Collections.emptyList(), Collections.emptyList(), new StateMachineGraph(), Collections.emptyList(), Collections.emptyList());
+	}
+}
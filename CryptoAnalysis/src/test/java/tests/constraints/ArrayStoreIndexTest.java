@@ -0,0 +1,78 @@
+package tests.constraints;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import crypto.constraints.ArrayStoreIndex;
+import soot.ArrayType;
+import soot.G;
+import soot.IntType;
+import soot.Local;
+import soot.Modifier;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.VoidType;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+
+public class ArrayStoreIndexTest {
+
+	private SootMethod method;
+	private Local r1;
+	private Local r10;
+
+	/**
+	 * Builds a method storing into the arrays r1 and r10, whose names share a prefix:
+	 * 
+	 * <pre>
+	 * r1 = newarray (int)[2];
+	 * r1[0] = 1;
+	 * r1[1] = 2;
+	 * r10 = newarray (int)[1];
+	 * r10[0] = 10;
+	 * </pre>
+	 */
+	@Before
+	public void createMethod() {
+		G.v().reset();
+		SootClass sootClass = new SootClass("ArrayStores", Modifier.PUBLIC);
+		Scene.v().addClass(sootClass);
+		method = new SootMethod("stores", Collections.emptyList(), VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+		sootClass.addMethod(method);
+
+		Jimple jimple = Jimple.v();
+		JimpleBody body = jimple.newBody(method);
+		ArrayType intArray = ArrayType.v(IntType.v(), 1);
+		r1 = jimple.newLocal("r1", intArray);
+		r10 = jimple.newLocal("r10", intArray);
+		body.getLocals().addAll(Arrays.asList(r1, r10));
+		body.getUnits().add(jimple.newAssignStmt(r1, jimple.newNewArrayExpr(IntType.v(), IntConstant.v(2))));
+		body.getUnits().add(jimple.newAssignStmt(jimple.newArrayRef(r1, IntConstant.v(0)), IntConstant.v(1)));
+		body.getUnits().add(jimple.newAssignStmt(jimple.newArrayRef(r1, IntConstant.v(1)), IntConstant.v(2)));
+		body.getUnits().add(jimple.newAssignStmt(r10, jimple.newNewArrayExpr(IntType.v(), IntConstant.v(1))));
+		body.getUnits().add(jimple.newAssignStmt(jimple.newArrayRef(r10, IntConstant.v(0)), IntConstant.v(10)));
+		body.getUnits().add(jimple.newReturnVoidStmt());
+		method.setActiveBody(body);
+	}
+
+	@Test
+	public void storesAreMatchedByTheExactLocal() {
+		ArrayStoreIndex index = new ArrayStoreIndex();
+		Assert.assertEquals(Sets.newHashSet(IntConstant.v(1), IntConstant.v(2)), index.getAssignedValues(method, r1));
+		Assert.assertEquals(Sets.newHashSet(IntConstant.v(10)), index.getAssignedValues(method, r10));
+	}
+
+	@Test
+	public void onlyLocalsHaveAssignedValues() {
+		ArrayStoreIndex index = new ArrayStoreIndex();
+		Assert.assertTrue(index.getAssignedValues(method, IntConstant.v(1)).isEmpty());
+	}
+}
@@ -0,0 +1,110 @@
+package tests.crysl;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import crypto.exceptions.CryptoAnalysisException;
+import crypto.rules.CrySLRule;
+import crypto.rules.CrySLRuleBundle;
+import crypto.rules.CrySLRuleReader;
+
+public class CrySLRuleBundleTest {
+
+	private static final String jcaRulesetZipFilePath = "src/test/resources/crySL/JavaCryptographicArchitecture-1.5.1-ruleset.zip";
+	private static final String multipleRulesetZipFilePath = "src/test/resources/crySL/Multiple-rulesets.zip";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File zip;
+	private File bundle;
+	private String contentHash;
+	private List<CrySLRule> parsedRules;
+
+	@Before
+	public void copyRuleset() throws IOException, CryptoAnalysisException {
+		// Copy the ruleset, such that the bundles of the tests are not written next to the resource
+		zip = new File(folder.getRoot(), "ruleset.zip");
+		Files.copy(new File(jcaRulesetZipFilePath).toPath(), zip.toPath());
+		bundle = CrySLRuleBundle.getBundleFile(zip);
+		contentHash = CrySLRuleBundle.computeContentHash(zip);
+		parsedRules = CrySLRuleReader.readFromZipFile(zip, false);
+	}
+
+	@Test
+	public void readBundleEqualsParsedRuleset() throws CryptoAnalysisException {
+		CrySLRuleBundle.write(bundle, contentHash, parsedRules);
+
+		List<CrySLRule> bundledRules = CrySLRuleBundle.read(bundle, contentHash);
+		Assert.assertNotNull(bundledRules);
+		Assert.assertEquals(46, bundledRules.size());
+		Assert.assertEquals(toStrings(parsedRules), toStrings(bundledRules));
+	}
+
+	@Test
+	public void readFromZipFileUsesUpToDateBundle() throws CryptoAnalysisException {
+		// A bundle with fewer rules than the ZIP file shows whether the rules are read from it
+		CrySLRuleBundle.write(bundle, contentHash, parsedRules.subList(0, 3));
+
+		Assert.assertEquals(toStrings(parsedRules.subList(0, 3)), toStrings(CrySLRuleReader.readFromZipFile(zip)));
+		Assert.assertEquals(46, CrySLRuleReader.readFromZipFile(zip, false).size());
+	}
+
+	@Test
+	public void changedRulesetFallsBackToParsing() throws CryptoAnalysisException {
+		// The bundle was compiled from another ruleset, which the ZIP file replaced since
+		String otherHash = CrySLRuleBundle.computeContentHash(new File(multipleRulesetZipFilePath));
+		CrySLRuleBundle.write(bundle, otherHash, parsedRules.subList(0, 3));
+
+		Assert.assertNull(CrySLRuleBundle.read(bundle, contentHash));
+		Assert.assertEquals(toStrings(parsedRules), toStrings(CrySLRuleReader.readFromZipFile(zip)));
+	}
+
+	@Test
+	public void otherFormatVersionFallsBackToParsing() throws IOException, CryptoAnalysisException {
+		writeBundle(CrySLRuleBundle.FORMAT_VERSION + 1, new ArrayList<>(parsedRules.subList(0, 3)));
+
+		Assert.assertNull(CrySLRuleBundle.read(bundle, contentHash));
+		Assert.assertEquals(toStrings(parsedRules), toStrings(CrySLRuleReader.readFromZipFile(zip)));
+	}
+
+	@Test
+	public void bundleWithOtherClassesIsRejected() throws IOException, CryptoAnalysisException {
+		List<Object> objects = new ArrayList<>();
+		objects.add(parsedRules.get(0));
+		objects.add(new File("rules"));
+		writeBundle(CrySLRuleBundle.FORMAT_VERSION, objects);
+
+		Assert.assertNull(CrySLRuleBundle.read(bundle, contentHash));
+		Assert.assertEquals(toStrings(parsedRules), toStrings(CrySLRuleReader.readFromZipFile(zip)));
+	}
+
+	/**
+	 * Writes a bundle in the format of {@link CrySLRuleBundle#write}, with any version and objects.
+	 */
+	private void writeBundle(int formatVersion, Object objects) throws IOException {
+		try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(bundle))))) {
+			out.writeInt(formatVersion);
+			out.writeUTF(contentHash);
+			out.writeObject(objects);
+		}
+	}
+
+	private static List<String> toStrings(List<CrySLRule> rules) {
+		return rules.stream().map(CrySLRule::toString).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,41 @@
+package tests.crysl;
+
+import java.io.File;
+import java.util.Collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import crypto.analysis.scheduling.RuleDependencyOrder;
+import crypto.exceptions.CryptoAnalysisException;
+import crypto.rules.CrySLRule;
+import crypto.rules.CrySLRuleReader;
+
+public class RuleDependencyOrderTest {
+
+	private static final String jcaRulesetZipFilePath = "src/test/resources/crySL/JavaCryptographicArchitecture-1.5.1-ruleset.zip";
+
+	@Test
+	public void requiringRulesComeAfterEnsuringRules() throws CryptoAnalysisException {
+		Collection<CrySLRule> rules = CrySLRuleReader.readFromZipFile(new File(jcaRulesetZipFilePath));
+		RuleDependencyOrder order = new RuleDependencyOrder(rules);
+
+		CrySLRule secureRandom = getRule(rules, "java.security.SecureRandom");
+		CrySLRule keyGenerator = getRule(rules, "javax.crypto.KeyGenerator");
+		CrySLRule cipher = getRule(rules, "javax.crypto.Cipher");
+
+		// SecureRandom requires and ensures randomized, the cycle must not raise its level
+		Assert.assertEquals(0, order.getLevel(secureRandom));
+		Assert.assertTrue(order.getLevel(secureRandom) < order.getLevel(keyGenerator));
+		Assert.assertTrue(order.getLevel(keyGenerator) < order.getLevel(cipher));
+	}
+
+	private static CrySLRule getRule(Collection<CrySLRule> rules, String className) {
+		for (CrySLRule rule : rules) {
+			if (rule.getClassName().equals(className)) {
+				return rule;
+			}
+		}
+		throw new AssertionError("No rule for " + className);
+	}
+}
@@ -46,6 +46,17 @@ public class ZipCrySLTest
         Assert.assertEquals(46, notNullRules.size());
     }
 
+    @Test
+    public void TestParallelReadEqualsSequentialRead() throws CryptoAnalysisException {
+        for (String path : new String[] { jcaRulesetZipFilePath, multipleRulesetZipFilePath }) {
+            File zipFile = new File(path);
+            Collection<String> sequentialRules = CrySLRuleReader.readFromZipFile(zipFile, false, 1).stream().map(CrySLRule::toString).collect(Collectors.toList());
+            Collection<String> parallelRules = CrySLRuleReader.readFromZipFile(zipFile, false, 4).stream().map(CrySLRule::toString).collect(Collectors.toList());
+            Assert.assertFalse(sequentialRules.isEmpty());
+            Assert.assertEquals(sequentialRules, parallelRules);
+        }
+    }
+
     @Test(expected = CryptoAnalysisException.class)
     public void TestFileNotExists() throws CryptoAnalysisException {
         File zipFile = new File("notExist");
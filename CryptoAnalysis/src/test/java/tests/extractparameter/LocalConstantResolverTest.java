@@ -0,0 +1,146 @@
+package tests.extractparameter;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import boomerang.jimple.Statement;
+import crypto.extractparameter.LocalConstantResolver;
+import soot.DoubleType;
+import soot.G;
+import soot.IntType;
+import soot.Local;
+import soot.Modifier;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Type;
+import soot.VoidType;
+import soot.jimple.AssignStmt;
+import soot.jimple.DoubleConstant;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.NullConstant;
+import soot.jimple.Stmt;
+import soot.jimple.StringConstant;
+
+public class LocalConstantResolverTest {
+
+	private SootMethod method;
+	private Stmt use;
+	private AssignStmt algorithm;
+	private AssignStmt keySize;
+	private AssignStmt redefinedMode;
+	private Local r0;
+	private Local r1;
+	private Local i2;
+	private Local r3;
+	private Local r4;
+	private Local r5;
+	private Local d6;
+
+	/**
+	 * Builds a method passing locals with one or several definitions to a call:
+	 * 
+	 * <pre>
+	 * r0 := @parameter0: java.lang.String;
+	 * r1 = "AES";
+	 * i2 = 128;
+	 * r3 = r0;
+	 * if r0 == null goto label1;
+	 * r4 = "GCM";
+	 * goto label2;
+	 * label1:
+	 * r4 = "CBC";
+	 * label2:
+	 * r5 = "ECB";
+	 * r5 = "GCM";
+	 * d6 = 1.0;
+	 * staticinvoke &lt;ConstantUses: void use(java.lang.String,int,java.lang.String,java.lang.String,java.lang.String,double)&gt;(r1, i2, r3, r4, r5, d6);
+	 * return;
+	 * </pre>
+	 */
+	@Before
+	public void createMethod() {
+		G.v().reset();
+		SootClass sootClass = new SootClass("ConstantUses", Modifier.PUBLIC);
+		Scene.v().addClass(sootClass);
+		RefType string = RefType.v("java.lang.String");
+		method = new SootMethod("constants", Collections.singletonList(string), VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+		sootClass.addMethod(method);
+		SootMethod callee = new SootMethod("use", Arrays.<Type>asList(string, IntType.v(), string, string, string, DoubleType.v()), VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+		sootClass.addMethod(callee);
+
+		Jimple jimple = Jimple.v();
+		JimpleBody body = jimple.newBody(method);
+		r0 = jimple.newLocal("r0", string);
+		r1 = jimple.newLocal("r1", string);
+		i2 = jimple.newLocal("i2", IntType.v());
+		r3 = jimple.newLocal("r3", string);
+		r4 = jimple.newLocal("r4", string);
+		r5 = jimple.newLocal("r5", string);
+		d6 = jimple.newLocal("d6", DoubleType.v());
+		body.getLocals().addAll(Arrays.asList(r0, r1, i2, r3, r4, r5, d6));
+
+		algorithm = jimple.newAssignStmt(r1, StringConstant.v("AES"));
+		keySize = jimple.newAssignStmt(i2, IntConstant.v(128));
+		AssignStmt cbc = jimple.newAssignStmt(r4, StringConstant.v("CBC"));
+		AssignStmt ecb = jimple.newAssignStmt(r5, StringConstant.v("ECB"));
+		redefinedMode = jimple.newAssignStmt(r5, StringConstant.v("GCM"));
+		use = jimple.newInvokeStmt(jimple.newStaticInvokeExpr(callee.makeRef(), Arrays.asList(r1, i2, r3, r4, r5, d6)));
+
+		body.getUnits().add(jimple.newIdentityStmt(r0, jimple.newParameterRef(string, 0)));
+		body.getUnits().add(algorithm);
+		body.getUnits().add(keySize);
+		body.getUnits().add(jimple.newAssignStmt(r3, r0));
+		body.getUnits().add(jimple.newIfStmt(jimple.newEqExpr(r0, NullConstant.v()), cbc));
+		body.getUnits().add(jimple.newAssignStmt(r4, StringConstant.v("GCM")));
+		body.getUnits().add(jimple.newGotoStmt(ecb));
+		body.getUnits().add(cbc);
+		body.getUnits().add(ecb);
+		body.getUnits().add(redefinedMode);
+		body.getUnits().add(jimple.newAssignStmt(d6, DoubleConstant.v(1.0)));
+		body.getUnits().add(use);
+		body.getUnits().add(jimple.newReturnVoidStmt());
+		method.setActiveBody(body);
+	}
+
+	@Test
+	public void stringAndIntConstantsAreResolved() {
+		LocalConstantResolver resolver = new LocalConstantResolver();
+		Assert.assertSame(algorithm, resolver.resolve(r1, new Statement(use, method)));
+		Assert.assertSame(keySize, resolver.resolve(i2, new Statement(use, method)));
+	}
+
+	@Test
+	public void onlyReachingDefinitionIsResolved() {
+		LocalConstantResolver resolver = new LocalConstantResolver();
+		Assert.assertSame(redefinedMode, resolver.resolve(r5, new Statement(use, method)));
+	}
+
+	@Test
+	public void definitionsOfSeveralPathsAreNotResolved() {
+		LocalConstantResolver resolver = new LocalConstantResolver();
+		Assert.assertNull(resolver.resolve(r4, new Statement(use, method)));
+	}
+
+	@Test
+	public void otherValuesAreNotResolved() {
+		LocalConstantResolver resolver = new LocalConstantResolver();
+		Assert.assertNull(resolver.resolve(r0, new Statement(use, method)));
+		Assert.assertNull(resolver.resolve(r3, new Statement(use, method)));
+		Assert.assertNull(resolver.resolve(d6, new Statement(use, method)));
+	}
+
+	@Test
+	public void methodsWithoutBodyAreNotResolved() {
+		SootMethod callee = use.getInvokeExpr().getMethod();
+		Assert.assertFalse(callee.hasActiveBody());
+		Assert.assertNull(new LocalConstantResolver().resolve(r1, new Statement(use, callee)));
+	}
+}
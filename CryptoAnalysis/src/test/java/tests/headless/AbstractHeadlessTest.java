@@ -1,15 +1,21 @@
 package tests.headless;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 import java.io.File;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
 import org.junit.Before;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 import com.google.common.collect.Table.Cell;
 import boomerang.BackwardQuery;
@@ -27,6 +33,7 @@ import crypto.analysis.EnsuredCrySLPredicate;
 import crypto.analysis.IAnalysisSeed;
 import crypto.analysis.errors.AbstractError;
 import crypto.analysis.errors.RequiredPredicateError;
+import crypto.boomerang.BackwardQueryCache;
 import crypto.exceptions.CryptoAnalysisException;
 import crypto.extractparameter.CallSiteWithParamIndex;
 import crypto.extractparameter.ExtractedValue;
@@ -54,6 +61,19 @@ public abstract class AbstractHeadlessTest {
 	private static boolean VISUALIZATION = false;
 	private CrySLAnalysisListener errorCountingAnalysisListener;
 	private Table<String, Class<?>, Integer> errorMarkerCountPerErrorTypeAndMethod = HashBasedTable.create();
+	private int numberOfThreads = 1;
+	private int timeBudget;
+	private String outputFolder;
+	private String csvOutputFile;
+	private boolean sarifReport;
+	private boolean precomputedICFG;
+	private int queryCacheSize = BackwardQueryCache.DEFAULT_MAXIMUM_SIZE;
+	private BackwardQueryCache queryCache;
+	private boolean resolveLocalConstants = true;
+	private boolean flightRecorderEvents;
+	private String performanceReportFile;
+	private Set<String> collectedValues = Sets.newHashSet();
+	private List<BackwardQuery> startedQueries = Lists.newArrayList();
 
 	protected MavenProject createAndCompile(String mavenProjectPath) {
 		MavenProject mi = new MavenProject(mavenProjectPath);
@@ -67,6 +87,7 @@ public abstract class AbstractHeadlessTest {
 
 	protected HeadlessCryptoScanner createScanner(MavenProject mp, Ruleset ruleset) {
 		G.v().reset();
+		queryCache = null;
 		HeadlessCryptoScanner scanner = new HeadlessCryptoScanner() {
 			@Override
 			protected String sootClassPath() {
@@ -95,19 +116,123 @@ public abstract class AbstractHeadlessTest {
 
 			@Override
 			protected String getOutputFolder() {
+				if (outputFolder != null) {
+					return outputFolder;
+				}
 				File file = new File("cognicrypt-output/");
 				file.mkdirs();
 				return VISUALIZATION ? file.getAbsolutePath() : super.getOutputFolder();
 			}
 
+			@Override
+			protected String getCSVOutputFile() {
+				return csvOutputFile;
+			}
+
+			@Override
+			protected boolean sarifReport() {
+				return sarifReport;
+			}
+
 			@Override
 			protected boolean enableVisualization() {
 				return VISUALIZATION;
 			}
+
+			@Override
+			protected int numberOfThreads() {
+				return numberOfThreads;
+			}
+
+			@Override
+			protected int timeBudget() {
+				return timeBudget;
+			}
+
+			@Override
+			protected boolean precomputedICFG() {
+				return precomputedICFG || super.precomputedICFG();
+			}
+
+			@Override
+			protected int queryCacheSize() {
+				return queryCacheSize;
+			}
+
+			@Override
+			protected BackwardQueryCache createBackwardQueryCache() {
+				queryCache = super.createBackwardQueryCache();
+				return queryCache;
+			}
+
+			@Override
+			protected boolean resolveLocalConstants() {
+				return resolveLocalConstants;
+			}
+
+			@Override
+			protected boolean flightRecorderEvents() {
+				return flightRecorderEvents;
+			}
+
+			@Override
+			protected String getPerformanceReportFile() {
+				return performanceReportFile;
+			}
 		};
 		return scanner;
 	}
 
+	protected void setNumberOfThreads(int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * @param timeBudget the time budget of the scan in seconds, 0 for no budget
+	 */
+	protected void setTimeBudget(int timeBudget) {
+		this.timeBudget = timeBudget;
+	}
+
+	protected void setOutputFolder(String outputFolder) {
+		this.outputFolder = outputFolder;
+	}
+
+	protected void setCSVOutputFile(String csvOutputFile) {
+		this.csvOutputFile = csvOutputFile;
+	}
+
+	protected void setSarifReport(boolean sarifReport) {
+		this.sarifReport = sarifReport;
+	}
+
+	protected void setPrecomputedICFG(boolean precomputedICFG) {
+		this.precomputedICFG = precomputedICFG;
+	}
+
+	protected void setQueryCacheSize(int queryCacheSize) {
+		this.queryCacheSize = queryCacheSize;
+	}
+
+	/**
+	 * @return the query cache of the last scan, <code>null</code> if it did not solve any query
+	 */
+	protected BackwardQueryCache getQueryCache() {
+		return queryCache;
+	}
+
+	protected void setResolveLocalConstants(boolean resolveLocalConstants) {
+		this.resolveLocalConstants = resolveLocalConstants;
+	}
+
+	protected void setFlightRecorderEvents(boolean flightRecorderEvents) {
+		this.flightRecorderEvents = flightRecorderEvents;
+	}
+
+	protected void setPerformanceReportFile(String performanceReportFile) {
+		this.performanceReportFile = performanceReportFile;
+	}
+
 	@Before
 	public void setup() {
 		errorCountingAnalysisListener = new CrySLAnalysisListener() {
@@ -142,7 +267,11 @@ public abstract class AbstractHeadlessTest {
 			}
 
 			@Override
-			public void collectedValues(AnalysisSeedWithSpecification seed, Multimap<CallSiteWithParamIndex, ExtractedValue> collectedValues) {}
+			public void collectedValues(AnalysisSeedWithSpecification seed, Multimap<CallSiteWithParamIndex, ExtractedValue> values) {
+				for (Entry<CallSiteWithParamIndex, ExtractedValue> value : values.entries()) {
+					collectedValues.add(value.getKey() + " in " + value.getKey().stmt().getMethod() + ": " + value.getValue());
+				}
+			}
 
 			@Override
 			public void checkedConstraints(AnalysisSeedWithSpecification analysisSeedWithSpecification, Collection<ISLConstraint> relConstraints) {}
@@ -151,7 +280,9 @@ public abstract class AbstractHeadlessTest {
 			public void seedStarted(IAnalysisSeed analysisSeedWithSpecification) {}
 
 			@Override
-			public void boomerangQueryStarted(Query seed, BackwardQuery q) {}
+			public void boomerangQueryStarted(Query seed, BackwardQuery q) {
+				startedQueries.add(q);
+			}
 
 			@Override
 			public void boomerangQueryFinished(Query seed, BackwardQuery q) {
@@ -207,6 +338,66 @@ public abstract class AbstractHeadlessTest {
 		}
 	}
 
+	/**
+	 * @return the number of errors reported per method and error type since the expectations were
+	 *         last cleared, the expectations are cleared afterwards
+	 */
+	protected Table<String, Class<?>, Integer> takeReportedErrors() {
+		Table<String, Class<?>, Integer> reportedErrors = HashBasedTable.create();
+		for (Cell<String, Class<?>, Integer> c : errorMarkerCountPerErrorTypeAndMethod.cellSet()) {
+			if (c.getValue() != 0) {
+				reportedErrors.put(c.getRowKey(), c.getColumnKey(), -c.getValue());
+			}
+		}
+		errorMarkerCountPerErrorTypeAndMethod.clear();
+		return reportedErrors;
+	}
+
+	/**
+	 * @return the parameter values extracted for the seeds since the last call, as text
+	 */
+	protected Set<String> takeCollectedValues() {
+		Set<String> values = collectedValues;
+		collectedValues = Sets.newHashSet();
+		return values;
+	}
+
+	/**
+	 * @return the value extraction queries started since the last call, including queries answered by the query cache
+	 */
+	protected List<BackwardQuery> takeStartedQueries() {
+		List<BackwardQuery> queries = startedQueries;
+		startedQueries = Lists.newArrayList();
+		return queries;
+	}
+
+	/**
+	 * Analyzes the project once per configuration, which sets up the scan before it runs, e.g. with
+	 * {@link #setNumberOfThreads(int)}. The settings of a configuration stay in effect for the
+	 * following scans. The scan of the first configuration must report errors, all other scans must
+	 * report the same errors and extract the same values.
+	 */
+	protected void assertSameResults(String projectPath, Runnable... configurations) {
+		MavenProject mavenProject = createAndCompile(new File(projectPath).getAbsolutePath());
+		Table<String, Class<?>, Integer> expectedErrors = null;
+		Set<String> expectedValues = null;
+		for (Runnable configuration : configurations) {
+			configuration.run();
+			HeadlessCryptoScanner scanner = createScanner(mavenProject);
+			scanner.exec();
+			Table<String, Class<?>, Integer> errors = takeReportedErrors();
+			Set<String> values = takeCollectedValues();
+			if (expectedErrors == null) {
+				assertFalse(errors.isEmpty());
+				expectedErrors = errors;
+				expectedValues = values;
+			} else {
+				assertEquals(expectedErrors, errors);
+				assertEquals(expectedValues, values);
+			}
+		}
+	}
+
 	protected void setErrorsCount(String methodSignature, Class<?> errorType, int errorMarkerCount) {
 		if (errorMarkerCountPerErrorTypeAndMethod.contains(methodSignature, errorType)) {
 			throw new RuntimeException("Error Type already specified for this method");
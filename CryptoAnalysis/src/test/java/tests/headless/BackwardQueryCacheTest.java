@@ -0,0 +1,64 @@
+package tests.headless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import crypto.HeadlessCryptoScanner;
+import crypto.boomerang.BackwardQueryCache;
+
+/**
+ * Analyzes examples whose seeds extract the values of the same variables, once with the results of
+ * the value extraction queries shared between seeds and once with caching disabled. Both runs must
+ * report the same errors, also when the shared results are requested by several threads. The seeds
+ * of the examples have to actually share results, i.e. the cache has to be hit.
+ */
+public class BackwardQueryCacheTest extends AbstractHeadlessTest {
+
+	@Test
+	public void cogniCryptDemoExample() {
+		assertSameResultsWithCache("../CryptoAnalysisTargets/CogniCryptDemoExample");
+	}
+
+	@Test
+	public void cryptoMisuseExamples() {
+		assertSameResultsWithCache("../CryptoAnalysisTargets/CryptoMisuseExamples");
+	}
+
+	@Test
+	public void sharedResultsAreHit() {
+		MavenProject mavenProject = createAndCompile(new File("../CryptoAnalysisTargets/CogniCryptDemoExample").getAbsolutePath());
+
+		setQueryCacheSize(0);
+		analyze(mavenProject);
+		assertEquals(0, getQueryCache().getHitCount());
+
+		setQueryCacheSize(BackwardQueryCache.DEFAULT_MAXIMUM_SIZE);
+		analyze(mavenProject);
+		assertTrue(getQueryCache().getHitCount() > 0);
+		assertEquals(0, getQueryCache().getEvictionCount());
+
+		setQueryCacheSize(1);
+		analyze(mavenProject);
+		assertTrue(getQueryCache().getEvictionCount() > 0);
+	}
+
+	private void assertSameResultsWithCache(String projectPath) {
+		assertSameResults(projectPath, () -> setQueryCacheSize(0),
+				() -> setQueryCacheSize(BackwardQueryCache.DEFAULT_MAXIMUM_SIZE),
+				() -> setNumberOfThreads(4),
+				// Evicting results must not change the results either
+				() -> {
+					setQueryCacheSize(1);
+					setNumberOfThreads(1);
+				});
+	}
+
+	private void analyze(MavenProject mavenProject) {
+		HeadlessCryptoScanner scanner = createScanner(mavenProject);
+		scanner.exec();
+	}
+}
@@ -0,0 +1,84 @@
+package tests.headless;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import boomerang.BackwardQuery;
+import crypto.HeadlessCryptoScanner;
+import soot.Local;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.DefinitionStmt;
+import soot.jimple.IntConstant;
+import soot.jimple.StringConstant;
+
+/**
+ * Analyzes examples passing constants to the APIs, once with the constants assigned in the same
+ * method resolved without Boomerang and once with all values extracted by Boomerang queries. Both
+ * runs must extract the same values at the same statements and report the same errors. With the
+ * constants resolved, no query must be issued for a local constant.
+ */
+public class LocalConstantResolverTest extends AbstractHeadlessTest {
+
+	@Test
+	public void cogniCryptDemoExample() {
+		assertSameResultsWithResolver("../CryptoAnalysisTargets/CogniCryptDemoExample");
+	}
+
+	@Test
+	public void cryptoMisuseExamples() {
+		assertSameResultsWithResolver("../CryptoAnalysisTargets/CryptoMisuseExamples");
+	}
+
+	@Test
+	public void localConstantsAreNotQueried() {
+		MavenProject mavenProject = createAndCompile(new File("../CryptoAnalysisTargets/CogniCryptDemoExample").getAbsolutePath());
+
+		setResolveLocalConstants(false);
+		List<BackwardQuery> queries = analyze(mavenProject);
+		assertTrue(queries.stream().anyMatch(LocalConstantResolverTest::isLocalConstant));
+
+		setResolveLocalConstants(true);
+		queries = analyze(mavenProject);
+		assertFalse(queries.isEmpty());
+		assertFalse(queries.stream().anyMatch(LocalConstantResolverTest::isLocalConstant));
+	}
+
+	private void assertSameResultsWithResolver(String projectPath) {
+		assertSameResults(projectPath, () -> setResolveLocalConstants(false), () -> setResolveLocalConstants(true));
+	}
+
+	/**
+	 * @return the queries of the scan, which have to be inspected before the next scan resets Soot
+	 */
+	private List<BackwardQuery> analyze(MavenProject mavenProject) {
+		HeadlessCryptoScanner scanner = createScanner(mavenProject);
+		scanner.exec();
+		return takeStartedQueries();
+	}
+
+	/**
+	 * @return <code>true</code> if the only definition of the queried local in its method assigns a string or int constant
+	 */
+	private static boolean isLocalConstant(BackwardQuery query) {
+		if (!(query.var().value() instanceof Local)) {
+			return false;
+		}
+		Local local = (Local) query.var().value();
+		List<Value> definitions = query.stmt().getMethod().getActiveBody().getUnits().stream()
+				.filter(unit -> isDefinitionOf(unit, local))
+				.map(unit -> ((DefinitionStmt) unit).getRightOp())
+				.collect(Collectors.toList());
+		return definitions.size() == 1 && (definitions.get(0) instanceof StringConstant || definitions.get(0) instanceof IntConstant);
+	}
+
+	private static boolean isDefinitionOf(Unit unit, Local local) {
+		return unit instanceof DefinitionStmt && ((DefinitionStmt) unit).getLeftOp() == local;
+	}
+}
@@ -0,0 +1,33 @@
+package tests.headless;
+
+import org.junit.Test;
+
+/**
+ * Analyzes examples with seeds of many rules, which exchange predicates and extract values with
+ * Boomerang queries, once with a single thread and once with multiple threads. Both runs use the
+ * precomputed ICFG and must report the same errors and extract the same values.
+ */
+public class MultipleThreadsTest extends AbstractHeadlessTest {
+
+	@Test
+	public void cogniCryptDemoExample() {
+		assertSameResultsWithThreads("../CryptoAnalysisTargets/CogniCryptDemoExample");
+	}
+
+	@Test
+	public void cryptoMisuseExamples() {
+		assertSameResultsWithThreads("../CryptoAnalysisTargets/CryptoMisuseExamples");
+	}
+
+	@Test
+	public void messageDigestExample() {
+		assertSameResultsWithThreads("../CryptoAnalysisTargets/MessageDigestExample");
+	}
+
+	private void assertSameResultsWithThreads(String projectPath) {
+		assertSameResults(projectPath, () -> {
+			setPrecomputedICFG(true);
+			setNumberOfThreads(1);
+		}, () -> setNumberOfThreads(4));
+	}
+}
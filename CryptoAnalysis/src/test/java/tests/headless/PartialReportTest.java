@@ -0,0 +1,83 @@
+package tests.headless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import crypto.HeadlessCryptoScanner;
+import crypto.reporting.SARIFConfig;
+
+/**
+ * The time budget of a second is exhausted by the Soot setup and the call graph construction, so
+ * all seeds are skipped. The reports must mark the results as partial, while the reports of a
+ * complete analysis remain unchanged.
+ */
+public class PartialReportTest extends AbstractHeadlessTest {
+
+	private static final String SARIF_REPORT = "CogniCrypt-SARIF-Report.txt";
+	private static final String CSV_REPORT = "report.csv";
+
+	@Rule
+	public TemporaryFolder reportDir = new TemporaryFolder();
+
+	@Test
+	public void exhaustedTimeBudget() throws IOException, ParseException {
+		analyze(1);
+
+		JSONObject properties = (JSONObject) getRun().get(SARIFConfig.PROPERTIES_KEY);
+		assertEquals(true, properties.get(SARIFConfig.PARTIAL_KEY));
+		int skippedObjects = ((JSONArray) properties.get(SARIFConfig.SKIPPED_OBJECTS_KEY)).size();
+		assertTrue(skippedObjects > 0);
+		assertEquals(Integer.toString(skippedObjects), getSkippedSeedObjectCount());
+	}
+
+	@Test
+	public void completeAnalysis() throws IOException, ParseException {
+		analyze(0);
+
+		assertFalse(getRun().containsKey(SARIFConfig.PROPERTIES_KEY));
+		assertEquals("0", getSkippedSeedObjectCount());
+	}
+
+	private void analyze(int timeBudget) {
+		MavenProject mavenProject = createAndCompile(new File("../CryptoAnalysisTargets/CogniCryptDemoExample").getAbsolutePath());
+		setTimeBudget(timeBudget);
+		setSarifReport(true);
+		setOutputFolder(reportDir.getRoot().getAbsolutePath());
+		setCSVOutputFile(new File(reportDir.getRoot(), CSV_REPORT).getAbsolutePath());
+		HeadlessCryptoScanner scanner = createScanner(mavenProject);
+		scanner.exec();
+	}
+
+	private JSONObject getRun() throws IOException, ParseException {
+		try (Reader reader = Files.newBufferedReader(new File(reportDir.getRoot(), SARIF_REPORT).toPath(), StandardCharsets.UTF_8)) {
+			JSONObject sarif = (JSONObject) new JSONParser().parse(reader);
+			return (JSONObject) ((JSONArray) sarif.get(SARIFConfig.RUNS_KEY)).get(0);
+		}
+	}
+
+	private String getSkippedSeedObjectCount() throws IOException {
+		List<String> lines = Files.readAllLines(new File(reportDir.getRoot(), CSV_REPORT).toPath(), StandardCharsets.UTF_8);
+		assertEquals(2, lines.size());
+		int column = Arrays.asList(lines.get(0).split(";")).indexOf("SkippedSeedObjectCount");
+		assertNotEquals(-1, column);
+		return lines.get(1).split(";")[column];
+	}
+}
@@ -0,0 +1,73 @@
+package tests.headless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import crypto.HeadlessCryptoScanner;
+import crypto.reporting.PerformanceReporter.Phase;
+
+public class PerformanceReportTest extends AbstractHeadlessTest {
+
+	private static final Pattern MEASUREMENT = Pattern.compile("\\d+ ms, (\\d+ MB|unknown) allocated \\((\\d+) measurements\\)");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void reportContainsPhasesRulesAndSeeds() throws IOException {
+		MavenProject mavenProject = createAndCompile(new File("../CryptoAnalysisTargets/CogniCryptDemoExample").getAbsolutePath());
+		File reportFile = new File(folder.getRoot(), "performance.txt");
+		setPerformanceReportFile(reportFile.getAbsolutePath());
+		HeadlessCryptoScanner scanner = createScanner(mavenProject);
+		scanner.exec();
+
+		String report = new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8);
+		String[] sections = report.split("\nRules \\(by total time of their seeds\\):\n|\nMost expensive seeds:\n");
+		assertEquals(3, sections.length);
+
+		for (Phase phase : Phase.values()) {
+			Matcher measurement = measurement(sections[0], "\t" + phase + ":");
+			// The example has seeds with constraints, predicates and Boomerang queries, hence every phase runs
+			assertTrue(phase + " was not measured", Integer.parseInt(measurement.group(2)) >= 1);
+		}
+
+		for (String rule : new String[] { "javax.crypto.Cipher", "javax.crypto.KeyGenerator", "java.security.KeyPairGenerator", "java.security.Signature" }) {
+			measurement(sections[1], "\t" + rule + ":");
+			// The total of a rule is followed by its phases, which include the typestate analysis of its seeds
+			measurement(sections[1].substring(sections[1].indexOf("\t" + rule + ":")), "\t\t" + Phase.TYPESTATE + ":");
+		}
+
+		List<String> seeds = Pattern.compile("\n").splitAsStream(sections[2]).filter(line -> line.matches("\t\\d+\\. .*")).collect(Collectors.toList());
+		assertTrue(!seeds.isEmpty() && seeds.size() <= 20);
+		assertTrue(seeds.get(0).startsWith("\t1. "));
+		assertTrue(sections[2].contains("\t\tStatement: "));
+		assertTrue(sections[2].contains("\t\tMethod: "));
+	}
+
+	/**
+	 * @return the measurement on the first line of the section starting with the prefix
+	 */
+	private static Matcher measurement(String section, String prefix) {
+		for (String line : section.split("\n")) {
+			if (line.startsWith(prefix)) {
+				Matcher matcher = MEASUREMENT.matcher(line);
+				assertTrue("No measurement in " + line, matcher.find());
+				return matcher;
+			}
+		}
+		throw new AssertionError("Missing " + prefix.trim() + " in\n" + section);
+	}
+}
@@ -0,0 +1,53 @@
+package tests.headless;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import crypto.HeadlessCryptoScanner;
+import crypto.analysis.CrySLRulesetSelector;
+import crypto.analysis.CrySLRulesetSelector.RuleFormat;
+import crypto.analysis.CrySLRulesetSelector.Ruleset;
+import crypto.analysis.ReferencedRuleSelector;
+import crypto.exceptions.CryptoAnalysisException;
+import crypto.rules.CrySLRule;
+import test.IDEALCrossingTestingFramework;
+
+/**
+ * The demo example uses Cipher, KeyGenerator, KeyPairGenerator and Signature, but never refers to
+ * SecureRandom or MessageDigest.
+ */
+public class ReferencedRuleSelectorTest extends AbstractHeadlessTest {
+
+	@Test
+	public void cogniCryptDemoExample() throws CryptoAnalysisException {
+		String mavenProjectPath = new File("../CryptoAnalysisTargets/CogniCryptDemoExample").getAbsolutePath();
+		MavenProject mavenProject = createAndCompile(mavenProjectPath);
+		HeadlessCryptoScanner scanner = createScanner(mavenProject);
+		scanner.exec();
+
+		List<CrySLRule> rules = CrySLRulesetSelector.makeFromRuleset(IDEALCrossingTestingFramework.RULES_BASE_DIR, RuleFormat.SOURCE, Ruleset.JavaCryptographicArchitecture);
+		Set<String> selected = Sets.newHashSet();
+		for (CrySLRule rule : new ReferencedRuleSelector().select(rules)) {
+			selected.add(rule.getClassName());
+		}
+
+		// Referenced by the application
+		assertTrue(selected.contains("javax.crypto.Cipher"));
+		assertTrue(selected.contains("javax.crypto.KeyGenerator"));
+		assertTrue(selected.contains("java.security.KeyPairGenerator"));
+		assertTrue(selected.contains("java.security.Signature"));
+		// Only reached through the randomized predicate required by KeyGenerator and Cipher
+		assertTrue(selected.contains("java.security.SecureRandom"));
+		// Neither referenced nor ensuring a predicate required by a selected rule
+		assertFalse(selected.contains("java.security.MessageDigest"));
+		assertFalse(selected.contains("java.security.DigestInputStream"));
+	}
+}
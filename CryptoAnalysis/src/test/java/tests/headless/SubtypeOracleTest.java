@@ -0,0 +1,37 @@
+package tests.headless;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import crypto.HeadlessCryptoScanner;
+import crypto.constraints.SubtypeOracle;
+
+/**
+ * The subtypes of JCA interfaces declared by the analyzed application are not on the class path of
+ * the analysis itself, hence they must be resolved in the class hierarchy of Soot.
+ */
+public class SubtypeOracleTest extends AbstractHeadlessTest {
+
+	private static final String TRUST_MANAGER = "icv.brokenSSLorTLS.SSLctxNoKeyMgmtNoTrustMgmt5$InnerTrustAllCertsAndHosts";
+
+	@Test
+	public void applicationClassImplementingJCAInterface() {
+		String mavenProjectPath = new File("../CryptoAnalysisTargets/BragaCryptoBench/cryptomisuses/brokenSSLorTLS").getAbsolutePath();
+		MavenProject mavenProject = createAndCompile(mavenProjectPath);
+		HeadlessCryptoScanner scanner = createScanner(mavenProject);
+		scanner.exec();
+
+		SubtypeOracle oracle = new SubtypeOracle();
+		assertTrue(oracle.isSubType("javax.net.ssl.X509TrustManager", TRUST_MANAGER));
+		assertTrue(oracle.isSubType("javax.net.ssl.TrustManager", TRUST_MANAGER));
+		assertTrue(oracle.isSubType("javax.net.ssl.HostnameVerifier", TRUST_MANAGER));
+		assertTrue(oracle.isSubType("java.lang.Object", TRUST_MANAGER));
+		assertFalse(oracle.isSubType(TRUST_MANAGER, "javax.net.ssl.X509TrustManager"));
+		assertFalse(oracle.isSubType("javax.net.ssl.KeyManager", TRUST_MANAGER));
+		assertFalse(oracle.isSubType("javax.net.ssl.TrustManager", "int"));
+	}
+}
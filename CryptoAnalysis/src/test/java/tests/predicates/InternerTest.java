@@ -0,0 +1,38 @@
+package tests.predicates;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import crypto.predicates.Interner;
+
+public class InternerTest {
+
+	@Test
+	public void idsAreDenseInOrderOfInterning() {
+		Interner<String> interner = new Interner<>();
+		Assert.assertEquals(0, interner.intern("generatedKey"));
+		Assert.assertEquals(1, interner.intern("randomized"));
+		Assert.assertEquals(2, interner.intern("speccedKey"));
+		Assert.assertEquals("randomized", interner.get(1));
+	}
+
+	@Test
+	public void equalObjectsShareIdAndInstance() {
+		Interner<String> interner = new Interner<>();
+		String first = new String("generatedKey");
+		String second = new String("generatedKey");
+		int id = interner.intern(first);
+
+		Assert.assertEquals(id, interner.intern(second));
+		Assert.assertEquals(id, interner.find(second));
+		Assert.assertSame(first, interner.get(id));
+	}
+
+	@Test
+	public void findDoesNotIntern() {
+		Interner<String> interner = new Interner<>();
+		Assert.assertEquals(-1, interner.find("generatedKey"));
+		Assert.assertEquals(0, interner.intern("randomized"));
+		Assert.assertEquals(-1, interner.find("generatedKey"));
+	}
+}
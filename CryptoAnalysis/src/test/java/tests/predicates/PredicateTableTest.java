@@ -0,0 +1,184 @@
+package tests.predicates;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+
+import boomerang.jimple.Statement;
+import crypto.predicates.Interner;
+import crypto.predicates.PredicateTable;
+import soot.G;
+import soot.Modifier;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.VoidType;
+import soot.jimple.Jimple;
+
+public class PredicateTableTest {
+
+	private Interner<Statement> statements;
+	private Interner<String> columns;
+	private Interner<String> predicates;
+	private PredicateTable<String, String> table;
+	private Statement s1;
+	private Statement s2;
+
+	@Before
+	public void createTable() {
+		G.v().reset();
+		SootClass sootClass = new SootClass("Predicates", Modifier.PUBLIC);
+		Scene.v().addClass(sootClass);
+		SootMethod method = new SootMethod("ensure", Collections.emptyList(), VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+		sootClass.addMethod(method);
+		s1 = new Statement(Jimple.v().newNopStmt(), method);
+		s2 = new Statement(Jimple.v().newNopStmt(), method);
+
+		statements = new Interner<>();
+		columns = new Interner<>();
+		predicates = new Interner<>();
+		table = new PredicateTable<>(statements, columns, predicates);
+	}
+
+	@Test
+	public void addReportsNewPredicates() {
+		Assert.assertTrue(table.add(s1, "key", "generatedKey"));
+		Assert.assertTrue(table.add(s1, "key", "randomized"));
+		Assert.assertFalse(table.add(s1, "key", "generatedKey"));
+		Assert.assertFalse(table.add(s1, "key", new String("randomized")));
+		// The same predicate in other cells
+		Assert.assertTrue(table.add(s2, "key", "generatedKey"));
+		Assert.assertTrue(table.add(s1, "cipher", "generatedKey"));
+
+		Assert.assertEquals(Sets.newHashSet("generatedKey", "randomized"), table.get(s1, "key"));
+		Assert.assertEquals(Sets.newHashSet("generatedKey"), table.get(s2, "key"));
+		Assert.assertEquals(Sets.newHashSet("generatedKey"), table.get(s1, "cipher"));
+	}
+
+	@Test
+	public void cellsAreOrderedByPredicateId() {
+		predicates.intern("a");
+		predicates.intern("b");
+		predicates.intern("c");
+		table.add(s1, "key", "c");
+		table.add(s1, "key", "a");
+		table.add(s1, "key", "b");
+
+		Assert.assertEquals(Lists.newArrayList("a", "b", "c"), Lists.newArrayList(table.get(s1, "key")));
+	}
+
+	@Test
+	public void containsOnlyPredicatesOfCell() {
+		table.add(s1, "key", "generatedKey");
+		table.add(s2, "key", "randomized");
+		Set<String> cell = table.get(s1, "key");
+
+		Assert.assertEquals(1, cell.size());
+		Assert.assertTrue(cell.contains("generatedKey"));
+		Assert.assertTrue(cell.contains(new String("generatedKey")));
+		// Interned by the other cell, but not contained in this one
+		Assert.assertFalse(cell.contains("randomized"));
+		// Never interned
+		Assert.assertFalse(cell.contains("speccedKey"));
+	}
+
+	@Test
+	public void missingCellsAreEmpty() {
+		table.add(s1, "key", "generatedKey");
+
+		Assert.assertTrue(table.get(s2, "key").isEmpty());
+		Assert.assertTrue(table.get(s1, "cipher").isEmpty());
+		// Interned statement and column of different cells
+		table.add(s2, "cipher", "randomized");
+		Assert.assertTrue(table.get(s2, "key").isEmpty());
+		Assert.assertEquals(-1, columns.find("mac"));
+		Assert.assertTrue(table.get(s1, "mac").isEmpty());
+		Assert.assertEquals(-1, columns.find("mac"));
+	}
+
+	@Test
+	public void cellViewsAreReadOnly() {
+		table.add(s1, "key", "generatedKey");
+		Set<String> cell = table.get(s1, "key");
+
+		try {
+			cell.remove("generatedKey");
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			cell.add("randomized");
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		Assert.assertEquals(Sets.newHashSet("generatedKey"), table.get(s1, "key"));
+	}
+
+	@Test
+	public void cellViewsReflectLaterAdditions() {
+		table.add(s1, "key", "generatedKey");
+		Set<String> cell = table.get(s1, "key");
+		table.add(s1, "key", "randomized");
+
+		Assert.assertEquals(Sets.newHashSet("generatedKey", "randomized"), cell);
+	}
+
+	@Test
+	public void tableHoldsViewsOfExistingCells() {
+		table.add(s1, "key", "generatedKey");
+		table.add(s1, "key", "randomized");
+		table.add(s2, "cipher", "generatedKey");
+		Table<Statement, String, Set<String>> view = table.asTable();
+
+		Table<Statement, String, Set<String>> expected = HashBasedTable.create();
+		expected.put(s1, "key", Sets.newHashSet("generatedKey", "randomized"));
+		expected.put(s2, "cipher", Sets.newHashSet("generatedKey"));
+		Assert.assertEquals(expected, view);
+
+		// Predicates added to existing cells are visible, new cells are not
+		table.add(s2, "cipher", "speccedKey");
+		table.add(s2, "key", "generatedKey");
+		Assert.assertEquals(Sets.newHashSet("generatedKey", "speccedKey"), view.get(s2, "cipher"));
+		Assert.assertFalse(view.contains(s2, "key"));
+		Assert.assertEquals(table.get(s2, "key"), table.asTable().get(s2, "key"));
+	}
+
+	@Test
+	public void cellKeysListEachCell() {
+		table.add(s1, "key", "generatedKey");
+		table.add(s1, "key", "randomized");
+		table.add(s2, "key", "generatedKey");
+		table.add(s2, "cipher", "generatedKey");
+
+		Set<Entry<Statement, String>> keys = Sets.newHashSet(table.cellKeys());
+		Assert.assertEquals(Sets.newHashSet(Maps.immutableEntry(s1, "key"), Maps.immutableEntry(s2, "key"), Maps.immutableEntry(s2, "cipher")), keys);
+	}
+
+	@Test
+	public void tablesShareInterners() {
+		PredicateTable<String, String> other = new PredicateTable<>(statements, columns, predicates);
+		table.add(s1, "key", "generatedKey");
+		other.add(s2, "cipher", "randomized");
+		other.add(s1, "key", "generatedKey");
+
+		Assert.assertEquals(0, statements.find(s1));
+		Assert.assertEquals(1, statements.find(s2));
+		Assert.assertEquals(Sets.newHashSet("generatedKey"), other.get(s1, "key"));
+		Assert.assertTrue(table.get(s2, "cipher").isEmpty());
+		List<String> interned = Lists.newArrayList(predicates.get(0), predicates.get(1));
+		Assert.assertEquals(Lists.newArrayList("generatedKey", "randomized"), interned);
+	}
+}
@@ -0,0 +1,111 @@
+package tests.reporting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import crypto.reporting.Histogram;
+
+public class HistogramTest {
+
+	@Test
+	public void valuesAreCountedInExponentialBuckets() {
+		Histogram histogram = new Histogram();
+		for (long millis : new long[] { 0, 1, 2, 3, 4, 7, 8, 1000 }) {
+			histogram.record(millis);
+		}
+
+		// Bucket i holds the values up to 2^i - 1
+		Assert.assertEquals("[0:1, 1:1, 3:2, 7:2, 15:1, 1023:1]", buckets(histogram));
+	}
+
+	@Test
+	public void negativeValuesAreCountedAsZero() {
+		Histogram histogram = new Histogram();
+		histogram.record(-5);
+
+		Assert.assertEquals("[0:1]", buckets(histogram));
+		Assert.assertEquals(0, histogram.getSum());
+	}
+
+	@Test
+	public void largeValuesAreCountedInLastBucket() {
+		Histogram histogram = new Histogram();
+		histogram.record(Long.MAX_VALUE);
+		histogram.record(1L << 40);
+
+		Assert.assertEquals("[2147483647:2]", buckets(histogram));
+	}
+
+	@Test
+	public void percentileIsUpperBoundOfBucket() {
+		Histogram histogram = new Histogram();
+		for (long millis : new long[] { 1, 2, 5, 6, 100 }) {
+			histogram.record(millis);
+		}
+
+		Assert.assertEquals(1, histogram.getPercentile(0.1));
+		Assert.assertEquals(3, histogram.getPercentile(0.3));
+		Assert.assertEquals(7, histogram.getPercentile(0.5));
+		Assert.assertEquals(7, histogram.getPercentile(0.7));
+	}
+
+	@Test
+	public void percentileIsCappedAtMaximum() {
+		Histogram histogram = new Histogram();
+		histogram.record(5);
+		histogram.record(100);
+
+		// The buckets of 5 and 100 reach up to 7 and 127, only the latter exceeds the maximum
+		Assert.assertEquals(7, histogram.getPercentile(0.5));
+		Assert.assertEquals(100, histogram.getPercentile(0.99));
+		Assert.assertEquals(100, histogram.getPercentile(1));
+	}
+
+	@Test
+	public void emptyHistogram() {
+		Histogram histogram = new Histogram();
+
+		Assert.assertEquals(0, histogram.getPercentile(0.5));
+		JSONObject json = histogram.toJSON();
+		Assert.assertEquals(0L, json.get("count"));
+		Assert.assertEquals(0L, json.get("min"));
+		Assert.assertEquals(0L, json.get("max"));
+		Assert.assertEquals(0.0, (double) json.get("mean"), 0);
+		Assert.assertTrue(((JSONArray) json.get("buckets")).isEmpty());
+	}
+
+	@Test
+	public void jsonContainsStatistics() {
+		Histogram histogram = new Histogram();
+		histogram.record(2);
+		histogram.record(4);
+		histogram.record(9);
+
+		JSONObject json = histogram.toJSON();
+		Assert.assertEquals(3L, json.get("count"));
+		Assert.assertEquals(15L, json.get("sum"));
+		Assert.assertEquals(2L, json.get("min"));
+		Assert.assertEquals(9L, json.get("max"));
+		Assert.assertEquals(5.0, (double) json.get("mean"), 0);
+		Assert.assertEquals(7L, json.get("p50"));
+		Assert.assertEquals(9L, json.get("p95"));
+		Assert.assertEquals(9L, json.get("p99"));
+	}
+
+	/**
+	 * @return the non-empty buckets as upper bound and count pairs
+	 */
+	static String buckets(Histogram histogram) {
+		List<String> buckets = new ArrayList<>();
+		for (Object bucket : (JSONArray) histogram.toJSON().get("buckets")) {
+			JSONObject json = (JSONObject) bucket;
+			buckets.add(json.get("le") + ":" + json.get("count"));
+		}
+		return buckets.toString();
+	}
+}
@@ -0,0 +1,106 @@
+package tests.reporting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import crypto.reporting.Histogram;
+import crypto.reporting.MetricsRegistry;
+import crypto.reporting.MetricsReporter;
+
+public class MetricsReporterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void registryCountsTotalAndPerRule() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.increment("seeds.discovered", "javax.crypto.Cipher");
+		registry.increment("seeds.discovered", "javax.crypto.Cipher");
+		registry.increment("seeds.discovered", "java.security.MessageDigest");
+		registry.increment("seeds.discovered", null);
+
+		Assert.assertEquals(4, registry.getCount("seeds.discovered", MetricsRegistry.TOTAL));
+		Assert.assertEquals(2, registry.getCount("seeds.discovered", "javax.crypto.Cipher"));
+		Assert.assertEquals(1, registry.getCount("seeds.discovered", "java.security.MessageDigest"));
+		Assert.assertEquals(0, registry.getCount("seeds.discovered", "javax.crypto.Mac"));
+		Assert.assertEquals(0, registry.getCount("seeds.finished", MetricsRegistry.TOTAL));
+	}
+
+	@Test
+	public void registryRecordsTotalAndPerRule() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.record("seed.time_ms", "javax.crypto.Cipher", 10);
+		registry.record("seed.time_ms", null, 20);
+
+		Assert.assertEquals(2, registry.getHistogram("seed.time_ms", MetricsRegistry.TOTAL).getCount());
+		Assert.assertEquals(30, registry.getHistogram("seed.time_ms", MetricsRegistry.TOTAL).getSum());
+		Assert.assertEquals(1, registry.getHistogram("seed.time_ms", "javax.crypto.Cipher").getCount());
+		Assert.assertNull(registry.getHistogram("seed.time_ms", "java.security.MessageDigest"));
+		Assert.assertNull(registry.getHistogram("typestate.time_ms", MetricsRegistry.TOTAL));
+	}
+
+	@Test
+	public void reportIsWrittenAsJSON() throws IOException, ParseException {
+		File metricsFile = new File(folder.getRoot(), "out/metrics.json");
+		MetricsReporter reporter = new MetricsReporter(metricsFile, 0);
+		reporter.beforeAnalysis();
+		reporter.getRegistry().increment("seeds.discovered", "javax.crypto.Cipher");
+		reporter.getRegistry().record("seed.time_ms", "javax.crypto.Cipher", 5);
+		reporter.afterAnalysis();
+
+		JSONObject json = read(metricsFile);
+		Assert.assertEquals(true, json.get("complete"));
+		Assert.assertTrue(json.get("elapsed_ms") instanceof Long);
+
+		JSONObject counters = (JSONObject) json.get("counters");
+		JSONObject discovered = (JSONObject) counters.get("seeds.discovered");
+		Assert.assertEquals(1L, discovered.get(MetricsRegistry.TOTAL));
+		Assert.assertEquals(1L, discovered.get("javax.crypto.Cipher"));
+
+		JSONObject histograms = (JSONObject) json.get("histograms");
+		Assert.assertTrue(histograms.containsKey("analysis.time_ms"));
+		JSONObject seedTime = (JSONObject) ((JSONObject) histograms.get("seed.time_ms")).get("javax.crypto.Cipher");
+		for (String key : new String[] { "count", "sum", "min", "max", "mean", "p50", "p95", "p99", "buckets" }) {
+			Assert.assertTrue("Missing " + key, seedTime.containsKey(key));
+		}
+		Assert.assertEquals(5L, seedTime.get("max"));
+		Assert.assertFalse(new File(metricsFile.getPath() + ".tmp").exists());
+	}
+
+	@Test
+	public void finalReportIsWrittenAfterIntervalWrites() throws IOException, ParseException, InterruptedException {
+		File metricsFile = new File(folder.getRoot(), "metrics.json");
+		MetricsReporter reporter = new MetricsReporter(metricsFile, 1);
+		reporter.beforeAnalysis();
+		reporter.getRegistry().increment("seeds.discovered", null);
+		Thread.sleep(1500);
+		Assert.assertEquals(false, read(metricsFile).get("complete"));
+
+		reporter.getRegistry().increment("seeds.discovered", null);
+		reporter.afterAnalysis();
+
+		JSONObject json = read(metricsFile);
+		Assert.assertEquals(true, json.get("complete"));
+		Assert.assertEquals(2L, ((JSONObject) ((JSONObject) json.get("counters")).get("seeds.discovered")).get(MetricsRegistry.TOTAL));
+		Histogram analysisTime = reporter.getRegistry().getHistogram("analysis.time_ms", MetricsRegistry.TOTAL);
+		Assert.assertTrue(analysisTime.getSum() >= 1000);
+	}
+
+	private static JSONObject read(File file) throws IOException, ParseException {
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			return (JSONObject) new JSONParser().parse(reader);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package tests.headless;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import crypto.HeadlessCryptoScanner;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Analyzes an example while recording the events of the Flight Recorder reporter. Only compiled and
+ * run with the jfr profile of the build.
+ */
+public class FlightRecorderTest extends AbstractHeadlessTest {
+
+	private static final String[] EVENTS = { "crypto.SeedAnalysis", "crypto.BoomerangQuery", "crypto.ConstraintEvaluation", "crypto.PredicateCheck" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void eventsAreCommitted() throws IOException {
+		MavenProject mavenProject = createAndCompile(new File("../CryptoAnalysisTargets/CogniCryptDemoExample").getAbsolutePath());
+		setFlightRecorderEvents(true);
+		HeadlessCryptoScanner scanner = createScanner(mavenProject);
+
+		Path dump = folder.getRoot().toPath().resolve("analysis.jfr");
+		try (Recording recording = new Recording()) {
+			for (String event : EVENTS) {
+				recording.enable(event);
+			}
+			recording.start();
+			scanner.exec();
+			recording.stop();
+			recording.dump(dump);
+		}
+
+		Map<String, List<RecordedEvent>> events = RecordingFile.readAllEvents(dump).stream()
+				.collect(Collectors.groupingBy(event -> event.getEventType().getName()));
+		for (String event : EVENTS) {
+			assertTrue("No " + event + " event committed", events.containsKey(event));
+		}
+		for (RecordedEvent seed : events.get("crypto.SeedAnalysis")) {
+			assertFalse(seed.getString("rule").isEmpty());
+			assertFalse(seed.getString("seedStatement").isEmpty());
+			assertTrue(seed.getString("outcome").equals("finished") || seed.getString("outcome").equals("timeout"));
+		}
+		for (RecordedEvent query : events.get("crypto.BoomerangQuery")) {
+			assertFalse(query.getString("queryStatement").isEmpty());
+		}
+	}
+}